@@ -0,0 +1,186 @@
+package comp2402graphEditor;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import comp2402graphEditor.Graph.PathFindingMethod;
+
+public class ArcFlags {
+	// Arc flags: the nodes are partitioned into geometric cells and every arc of
+	// the snapshot gets one bit per cell, set if the arc lies on some shortest
+	// path into that cell. A query towards a target in cell c then runs Dijkstra
+	// but only follows arcs flagged for c, which prunes most of the graph that
+	// leads away from the target's region.
+	// The flags of cell c are found with one shortest path tree per boundary node
+	// of c (a node with a neighbour in another cell); arcs inside c are always
+	// flagged. The graph is undirected so the tree into a boundary node is the
+	// tree grown out of it. The trees are independent and are computed in parallel
+	// on the shared pool of PathBatch; they OR their bits into one shared array.
+
+	public static final int MAX_CELLS = 64; // one bit per cell in a long
+	public static final int DEFAULT_CELLS = 16;
+
+	private final GraphSnapshot graph; // snapshot the flags were computed on
+	private final int cellCount;
+	private final int[] cell; // cell of each node
+	private final long[] flags; // flags[arc] bit c: arc is on a shortest path into cell c
+	private int boundaryCount = 0;
+
+	public ArcFlags(GraphSnapshot g, int cells) {
+		graph = g;
+		cell = new int[g.nodeCount()];
+		cellCount = partition(g, Math.max(1, Math.min(cells, MAX_CELLS)), cell);
+
+		// boundary nodes and arcs inside a cell
+		IntList boundary = new IntList();
+		AtomicLongArray sharedFlags = new AtomicLongArray(g.arcCount());
+		for (int v = 0; v < g.nodeCount(); v++) {
+			boolean isBoundary = false;
+			for (int arc = g.firstArc[v]; arc < g.firstArc[v + 1]; arc++) {
+				if (cell[g.arcHead[arc]] == cell[v])
+					sharedFlags.set(arc, 1L << cell[v]);
+				else
+					isBoundary = true;
+			}
+			if (isBoundary)
+				boundary.add(v);
+		}
+		boundaryCount = boundary.size();
+
+		PathBatch.pool(0).invoke(new FlagTask(boundary.toArray(), 0, boundary.size(), sharedFlags));
+		flags = new long[g.arcCount()]; // plain array for the queries
+		for (int arc = 0; arc < flags.length; arc++)
+			flags[arc] = sharedFlags.get(arc);
+	}
+
+	public GraphSnapshot getGraph() {return graph;}
+	public int cellCount() {return cellCount;}
+	public int cellOf(int v) {return cell[v];}
+	public int boundaryCount() {return boundaryCount;}
+
+	// Arc flags look like this: ArcFlags(16 cells, 80 boundary nodes)
+	public String toString() {
+		return "ArcFlags(" + cellCount + " cells, " + boundaryCount + " boundary nodes)";
+	}
+
+	// Split the bounding box of the nodes into a grid of at most cells cells.
+	// Answer the number of cells and fill in the cell of each node
+	private static int partition(GraphSnapshot g, int cells, int[] cell) {
+		int n = g.nodeCount();
+		if (n == 0)
+			return 1;
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+		for (int v = 0; v < n; v++) {
+			minX = Math.min(minX, g.x[v]);
+			maxX = Math.max(maxX, g.x[v]);
+			minY = Math.min(minY, g.y[v]);
+			maxY = Math.max(maxY, g.y[v]);
+		}
+		int columns = (int) Math.ceil(Math.sqrt(cells));
+		int rows = cells / columns;
+		long width = (long) maxX - minX + 1;
+		long height = (long) maxY - minY + 1;
+		for (int v = 0; v < n; v++) {
+			int column = (int) ((g.x[v] - minX) * columns / width);
+			int row = (int) ((g.y[v] - minY) * rows / height);
+			cell[v] = row * columns + column;
+		}
+		return rows * columns;
+	}
+
+	// Sets the flags found by the shortest path trees of a range of boundary
+	// nodes, splitting the range in half until it is small enough
+	private class FlagTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private static final int TREES_PER_TASK = 8;
+		private final int[] boundary;
+		private final int from, to;
+		private final AtomicLongArray sharedFlags;
+
+		FlagTask(int[] boundary, int from, int to, AtomicLongArray sharedFlags) {
+			this.boundary = boundary;
+			this.from = from;
+			this.to = to;
+			this.sharedFlags = sharedFlags;
+		}
+
+		protected void compute() {
+			if (to - from > TREES_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new FlagTask(boundary, from, middle, sharedFlags),
+						new FlagTask(boundary, middle, to, sharedFlags));
+				return;
+			}
+			SearchContext context = new SearchContext(graph.nodeCount());
+			for (int i = from; i < to; i++) {
+				int b = boundary[i];
+				long bit = 1L << cell[b];
+				GraphSearch.shortestPathTree(graph, b, Graph.infinity(), context);
+				// arc v->w leads along a shortest path to b if d(v) = weight + d(w)
+				for (int k = 0; k < context.reachedCount(); k++) {
+					int v = context.reachedNode(k);
+					double dv = context.distanceTo(v);
+					for (int arc = graph.firstArc[v]; arc < graph.firstArc[v + 1]; arc++)
+						if (dv == graph.arcWeight[arc] + context.distanceTo(graph.arcHead[arc]))
+							setFlag(arc, bit);
+				}
+			}
+		}
+
+		// OR bit into the flags of arc; most bits are already set by an
+		// earlier tree of the same cell, so only the first one needs a CAS
+		private void setFlag(int arc, long bit) {
+			long old = sharedFlags.get(arc);
+			while ((old & bit) == 0 && !sharedFlags.compareAndSet(arc, old, old | bit))
+				old = sharedFlags.get(arc);
+		}
+	}
+
+	// QUERY
+
+	public PathResult findPath(int source, int target, SearchContext context) {
+		// Dijkstra that skips arcs not flagged for the target's cell
+		long targetBit = 1L << cell[target];
+		GraphSnapshot g = graph;
+		context.reset(g.nodeCount());
+		IndexedMinHeap frontier = context.frontier;
+		context.setDistance(source, 0.0, -1);
+		frontier.offer(source, 0.0);
+
+		boolean found = false;
+		while (!frontier.isEmpty()) {
+			int currentNode = frontier.poll();
+			if (currentNode == target) {
+				found = true;
+				break;
+			}
+			context.setVisited(currentNode);
+			context.settledCount++;
+			double currentDistance = context.distanceTo(currentNode);
+
+			for (int arc = g.firstArc[currentNode]; arc < g.firstArc[currentNode + 1]; arc++) {
+				if ((flags[arc] & targetBit) == 0)
+					continue;
+				int neighbour = g.arcHead[arc];
+				double d = currentDistance + g.arcWeight[arc];
+				if (!context.isVisited(neighbour) && context.distanceTo(neighbour) > d) {
+					context.setDistance(neighbour, d, g.arcEdge[arc]);
+					frontier.offer(neighbour, d);
+				}
+			}
+		}
+		if (!found)
+			return new PathResult(g, PathFindingMethod.ArcFlags, source, target, false, Graph.infinity(),
+					new int[0], context.settledCount);
+
+		IntList pathEdges = new IntList();
+		for (int v = target; v != source; v = GraphSearch.otherEnd(g, context.previousEdge(v), v))
+			pathEdges.add(context.previousEdge(v));
+		int[] edgeIds = new int[pathEdges.size()];
+		for (int i = 0; i < edgeIds.length; i++)
+			edgeIds[i] = pathEdges.get(edgeIds.length - 1 - i);
+		return new PathResult(g, PathFindingMethod.ArcFlags, source, target, true, context.distanceTo(target),
+				edgeIds, context.settledCount);
+	}
+}
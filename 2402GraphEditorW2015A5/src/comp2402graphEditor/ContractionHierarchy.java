@@ -0,0 +1,413 @@
+package comp2402graphEditor;
+
+import java.util.Arrays;
+
+import comp2402graphEditor.Graph.PathFindingMethod;
+
+public class ContractionHierarchy {
+	// Contraction Hierarchies: a preprocessing step that makes repeated point to
+	// point queries on a static graph much cheaper than Dijkstra.
+	// Nodes are contracted one at a time, least important first. Contracting v
+	// removes it from the remaining graph and, for every pair of its neighbours
+	// u and w whose only shortest connection runs through v, adds a shortcut u-w
+	// with weight d(u,v) + d(v,w). The order in which nodes are contracted is their rank.
+	// A query then runs a bidirectional Dijkstra that only follows arcs leading
+	// to higher ranked nodes; both searches meet at the highest node of the path.
+	// The graph is undirected so one upward CSR serves both search directions.
+	// Shortcuts remember the two arcs they replace and are unpacked back into
+	// edges of the snapshot, so results look exactly like those of the other methods.
+
+	// bounds on the nodes settled by each witness search, small while only
+	// estimating priorities and larger when shortcuts are really added
+	private static final int SIMULATION_SETTLE_LIMIT = 40;
+	private static final int CONTRACTION_SETTLE_LIMIT = 1000;
+
+	private final GraphSnapshot graph; // snapshot the hierarchy was built on
+
+	// Arcs of the hierarchy: the original edges first, then the shortcuts.
+	// A shortcut between arcTail and arcHead replaces arcLow (arcTail to the
+	// contracted middle node) followed by arcHigh (middle node to arcHead)
+	private int arcCount = 0;
+	private int[] arcTail;
+	private int[] arcHead;
+	private double[] arcWeight;
+	private int[] arcEdge; // snapshot edge index, -1 for shortcuts
+	private int[] arcLow;
+	private int[] arcHigh;
+
+	private final int[] rank; // position of each node in the contraction order
+
+	// upward CSR: arcs from v to higher ranked nodes are upFirst[v] .. upFirst[v+1]-1
+	private int[] upFirst;
+	private int[] upHead;
+	private int[] upArc; // hierarchy arc of each upward arc
+	private double[] upWeight;
+
+	// preprocessing state, discarded once the hierarchy is built
+	private IntList[] incidentArcs; // arcs to uncontracted neighbours
+	private boolean[] contracted;
+	private int[] contractedNeighbours;
+	private SearchContext witnessContext;
+	private IntList neighbours = new IntList();
+	private IntList neighbourArcs = new IntList();
+	private int[] neighbourSlot; // slot of a node in neighbours, valid when neighbourStamp matches
+	private int[] neighbourStamp;
+	private int stamp = 0;
+
+	public ContractionHierarchy(GraphSnapshot g) {
+		graph = g;
+		int n = g.nodeCount();
+		int m = g.edgeCount();
+		arcTail = new int[Math.max(2 * m, 16)];
+		arcHead = new int[arcTail.length];
+		arcWeight = new double[arcTail.length];
+		arcEdge = new int[arcTail.length];
+		arcLow = new int[arcTail.length];
+		arcHigh = new int[arcTail.length];
+		rank = new int[n];
+
+		incidentArcs = new IntList[n];
+		for (int v = 0; v < n; v++)
+			incidentArcs[v] = new IntList(g.firstArc[v + 1] - g.firstArc[v]);
+		for (int e = 0; e < m; e++)
+			if (g.edgeStart[e] != g.edgeEnd[e]) // loops are never on a shortest path
+				addArc(g.edgeStart[e], g.edgeEnd[e], g.edgeWeight[e], e, -1, -1);
+
+		contracted = new boolean[n];
+		contractedNeighbours = new int[n];
+		witnessContext = new SearchContext(n);
+		neighbourSlot = new int[n];
+		neighbourStamp = new int[n];
+		contractAll();
+		buildUpwardGraph();
+
+		incidentArcs = null;
+		contracted = null;
+		contractedNeighbours = null;
+		witnessContext = null;
+		neighbourSlot = null;
+		neighbourStamp = null;
+	}
+
+	public GraphSnapshot getGraph() {return graph;}
+	public int rank(int v) {return rank[v];}
+	public int shortcutCount() {return arcCount - graph.edgeCount();}
+
+	// Hierarchies look like this: CH(231 nodes, 337 edges, 120 shortcuts)
+	public String toString() {
+		return "CH(" + graph.nodeCount() + " nodes, " + graph.edgeCount() + " edges, " + shortcutCount()
+				+ " shortcuts)";
+	}
+
+	// PREPROCESSING
+
+	private int addArc(int tail, int head, double weight, int edge, int low, int high) {
+		if (arcCount == arcTail.length) {
+			int capacity = arcCount * 2;
+			arcTail = Arrays.copyOf(arcTail, capacity);
+			arcHead = Arrays.copyOf(arcHead, capacity);
+			arcWeight = Arrays.copyOf(arcWeight, capacity);
+			arcEdge = Arrays.copyOf(arcEdge, capacity);
+			arcLow = Arrays.copyOf(arcLow, capacity);
+			arcHigh = Arrays.copyOf(arcHigh, capacity);
+		}
+		int arc = arcCount++;
+		arcTail[arc] = tail;
+		arcHead[arc] = head;
+		arcWeight[arc] = weight;
+		arcEdge[arc] = edge;
+		arcLow[arc] = low;
+		arcHigh[arc] = high;
+		incidentArcs[tail].add(arc);
+		incidentArcs[head].add(arc);
+		return arc;
+	}
+
+	private int otherEnd(int arc, int v) {
+		return arcTail[arc] == v ? arcHead[arc] : arcTail[arc];
+	}
+
+	private void contractAll() {
+		// Contract nodes in order of edge difference (shortcuts added minus arcs
+		// removed) plus the number of neighbours already contracted, which spreads
+		// the contraction evenly over the graph. Priorities are updated lazily: a
+		// node taken from the queue is re-evaluated and put back if it is no longer
+		// the cheapest. (Re-evaluating all neighbours after each contraction as
+		// well made preprocessing several times slower for about the same result.)
+		int n = graph.nodeCount();
+		IndexedMinHeap queue = new IndexedMinHeap(n);
+		for (int v = 0; v < n; v++)
+			queue.offer(v, priority(v));
+
+		int nextRank = 0;
+		while (!queue.isEmpty()) {
+			int v = queue.poll();
+			double p = priority(v);
+			if (!queue.isEmpty() && p > queue.peekKey()) {
+				queue.offer(v, p);
+				continue;
+			}
+			contractNode(v, false);
+			contracted[v] = true;
+			rank[v] = nextRank++;
+
+			// detach v from its remaining neighbours
+			for (int i = 0; i < incidentArcs[v].size(); i++) {
+				int u = otherEnd(incidentArcs[v].get(i), v);
+				if (contracted[u])
+					continue;
+				IntList arcs = incidentArcs[u];
+				for (int j = arcs.size() - 1; j >= 0; j--)
+					if (otherEnd(arcs.get(j), u) == v) {
+						arcs.set(j, arcs.get(arcs.size() - 1));
+						arcs.removeLast();
+					}
+				contractedNeighbours[u]++;
+			}
+		}
+	}
+
+	private double priority(int v) {
+		int shortcuts = contractNode(v, true);
+		return shortcuts - neighbours.size() + contractedNeighbours[v];
+	}
+
+	// Find the shortcuts needed to contract v and add them unless simulate is
+	// true. Answer the number of shortcuts; neighbours holds v's neighbours after.
+	private int contractNode(int v, boolean simulate) {
+		// collect the uncontracted neighbours, keeping the lightest arc to each
+		stamp++;
+		neighbours.clear();
+		neighbourArcs.clear();
+		for (int i = 0; i < incidentArcs[v].size(); i++) {
+			int arc = incidentArcs[v].get(i);
+			int u = otherEnd(arc, v);
+			if (contracted[u] || u == v)
+				continue;
+			if (neighbourStamp[u] != stamp) {
+				neighbourStamp[u] = stamp;
+				neighbourSlot[u] = neighbours.size();
+				neighbours.add(u);
+				neighbourArcs.add(arc);
+			} else if (arcWeight[arc] < arcWeight[neighbourArcs.get(neighbourSlot[u])])
+				neighbourArcs.set(neighbourSlot[u], arc);
+		}
+
+		double maxWeight = 0.0;
+		for (int i = 0; i < neighbourArcs.size(); i++)
+			maxWeight = Math.max(maxWeight, arcWeight[neighbourArcs.get(i)]);
+
+		// each pair u, w needs a shortcut unless a witness path avoiding v is
+		// at most as long as the path through v
+		IntList shortcuts = simulate ? null : new IntList();
+		int count = 0;
+		for (int i = 0; i < neighbours.size() - 1; i++) {
+			int u = neighbours.get(i);
+			double toV = arcWeight[neighbourArcs.get(i)];
+			witnessSearch(u, v, i + 1, toV + maxWeight, simulate ? SIMULATION_SETTLE_LIMIT : CONTRACTION_SETTLE_LIMIT);
+			for (int j = i + 1; j < neighbours.size(); j++) {
+				double viaV = toV + arcWeight[neighbourArcs.get(j)];
+				if (witnessContext.distanceTo(neighbours.get(j)) > viaV) {
+					count++;
+					if (!simulate) {
+						shortcuts.add(i);
+						shortcuts.add(j);
+					}
+				}
+			}
+		}
+		if (!simulate) {
+			for (int k = 0; k < shortcuts.size(); k += 2) {
+				int low = neighbourArcs.get(shortcuts.get(k));
+				int high = neighbourArcs.get(shortcuts.get(k + 1));
+				addArc(neighbours.get(shortcuts.get(k)), neighbours.get(shortcuts.get(k + 1)),
+						arcWeight[low] + arcWeight[high], -1, low, high);
+			}
+		}
+		return count;
+	}
+
+	private void witnessSearch(int source, int avoid, int firstTarget, double maxDistance, int settleLimit) {
+		// Dijkstra from source in the remaining graph without node avoid, stopped
+		// once the neighbours in slots firstTarget and up are all settled, at
+		// maxDistance or after a fixed number of settled nodes.
+		// Stopping early can only cause an unnecessary shortcut, never a wrong one.
+		SearchContext context = witnessContext;
+		context.reset(graph.nodeCount());
+		IndexedMinHeap frontier = context.frontier;
+		context.setDistance(source, 0.0, -1);
+		frontier.offer(source, 0.0);
+		int settled = 0;
+		int targetsLeft = neighbours.size() - firstTarget;
+
+		while (!frontier.isEmpty() && frontier.peekKey() <= maxDistance && settled < settleLimit) {
+			int currentNode = frontier.poll();
+			context.setVisited(currentNode);
+			settled++;
+			if (neighbourStamp[currentNode] == stamp && neighbourSlot[currentNode] >= firstTarget
+					&& --targetsLeft == 0)
+				break;
+			double currentDistance = context.distanceTo(currentNode);
+			IntList arcs = incidentArcs[currentNode];
+			for (int i = 0; i < arcs.size(); i++) {
+				int arc = arcs.get(i);
+				int neighbour = otherEnd(arc, currentNode);
+				if (neighbour == avoid || context.isVisited(neighbour))
+					continue;
+				double d = currentDistance + arcWeight[arc];
+				if (context.distanceTo(neighbour) > d) {
+					context.setDistance(neighbour, d, arc);
+					frontier.offer(neighbour, d);
+				}
+			}
+		}
+	}
+
+	private void buildUpwardGraph() {
+		// every arc leads upward from its lower ranked end
+		int n = graph.nodeCount();
+		upFirst = new int[n + 1];
+		for (int arc = 0; arc < arcCount; arc++)
+			upFirst[lowerEnd(arc) + 1]++;
+		for (int v = 0; v < n; v++)
+			upFirst[v + 1] += upFirst[v];
+		upHead = new int[arcCount];
+		upArc = new int[arcCount];
+		upWeight = new double[arcCount];
+		int[] next = Arrays.copyOf(upFirst, n);
+		for (int arc = 0; arc < arcCount; arc++) {
+			int v = lowerEnd(arc);
+			int up = next[v]++;
+			upHead[up] = otherEnd(arc, v);
+			upArc[up] = arc;
+			upWeight[up] = arcWeight[arc];
+		}
+	}
+
+	private int lowerEnd(int arc) {
+		return rank[arcTail[arc]] < rank[arcHead[arc]] ? arcTail[arc] : arcHead[arc];
+	}
+
+	// QUERY
+
+	public PathResult findPath(int source, int target, SearchContext context) {
+		// Bidirectional upward search. The forward search runs in context and the
+		// backward one in context.reverse(); each side stops once its smallest key
+		// reaches the best path length mu found so far.
+		SearchContext forward = context;
+		SearchContext backward = context.reverse();
+		forward.reset(graph.nodeCount());
+		backward.reset(graph.nodeCount());
+		forward.setDistance(source, 0.0, -1);
+		forward.frontier.offer(source, 0.0);
+		backward.setDistance(target, 0.0, -1);
+		backward.frontier.offer(target, 0.0);
+
+		double mu = source == target ? 0.0 : Graph.infinity();
+		int meetingNode = source == target ? source : -1;
+		boolean forwardTurn = true;
+
+		while (true) {
+			boolean forwardDone = forward.frontier.isEmpty() || forward.frontier.peekKey() >= mu;
+			boolean backwardDone = backward.frontier.isEmpty() || backward.frontier.peekKey() >= mu;
+			if (forwardDone && backwardDone)
+				break;
+			boolean expandForward = !forwardDone && (backwardDone || forwardTurn);
+			forwardTurn = !forwardTurn;
+			SearchContext side = expandForward ? forward : backward;
+			SearchContext otherSide = expandForward ? backward : forward;
+
+			int currentNode = side.frontier.poll();
+			side.setVisited(currentNode);
+			side.settledCount++;
+			double currentDistance = side.distanceTo(currentNode);
+
+			for (int up = upFirst[currentNode]; up < upFirst[currentNode + 1]; up++) {
+				int neighbour = upHead[up];
+				double d = currentDistance + upWeight[up];
+				if (side.isVisited(neighbour) || side.distanceTo(neighbour) <= d)
+					continue;
+				side.setDistance(neighbour, d, upArc[up]);
+				side.frontier.offer(neighbour, d);
+				if (otherSide.isReached(neighbour) && d + otherSide.distanceTo(neighbour) < mu) {
+					mu = d + otherSide.distanceTo(neighbour);
+					meetingNode = neighbour;
+				}
+			}
+		}
+		context.settledCount = forward.settledCount + backward.settledCount;
+		if (meetingNode < 0)
+			return new PathResult(graph, PathFindingMethod.ContractionHierarchies, source, target, false,
+					Graph.infinity(), new int[0], context.settledCount);
+
+		// hierarchy arcs from the source up to the meeting node and down to the target
+		IntList upArcs = new IntList();
+		IntList upFrom = new IntList();
+		for (int v = meetingNode; v != source; ) {
+			int arc = forward.previousEdge(v);
+			v = otherEnd(arc, v);
+			upArcs.add(arc);
+			upFrom.add(v);
+		}
+		IntList pathEdges = new IntList();
+		for (int i = upArcs.size() - 1; i >= 0; i--)
+			unpack(upArcs.get(i), upFrom.get(i), pathEdges);
+		for (int v = meetingNode; v != target; ) {
+			int arc = backward.previousEdge(v);
+			unpack(arc, v, pathEdges);
+			v = otherEnd(arc, v);
+		}
+
+		double distance = 0.0;
+		int[] edgeIds = pathEdges.toArray();
+		for (int e : edgeIds)
+			distance += graph.edgeWeight[e];
+		return new PathResult(graph, PathFindingMethod.ContractionHierarchies, source, target, true, distance,
+				edgeIds, context.settledCount);
+	}
+
+	// Settle every node reachable from source along upward arcs. Afterwards the
+	// context holds the upward distance of each of them; used by distance tables
+	void upwardSearch(int source, SearchContext context) {
+		context.reset(graph.nodeCount());
+		IndexedMinHeap frontier = context.frontier;
+		context.setDistance(source, 0.0, -1);
+		frontier.offer(source, 0.0);
+		while (!frontier.isEmpty()) {
+			int currentNode = frontier.poll();
+			context.setVisited(currentNode);
+			context.settledCount++;
+			double currentDistance = context.distanceTo(currentNode);
+			for (int up = upFirst[currentNode]; up < upFirst[currentNode + 1]; up++) {
+				int neighbour = upHead[up];
+				double d = currentDistance + upWeight[up];
+				if (!context.isVisited(neighbour) && context.distanceTo(neighbour) > d) {
+					context.setDistance(neighbour, d, upArc[up]);
+					frontier.offer(neighbour, d);
+				}
+			}
+		}
+	}
+
+	// Append the snapshot edges of a hierarchy arc, walked starting at node from
+	private void unpack(int arc, int from, IntList pathEdges) {
+		IntList stack = new IntList(); // pairs of arc, start node
+		stack.add(arc);
+		stack.add(from);
+		while (!stack.isEmpty()) {
+			int v = stack.removeLast();
+			int a = stack.removeLast();
+			if (arcEdge[a] >= 0) {
+				pathEdges.add(arcEdge[a]);
+				continue;
+			}
+			int first = arcTail[a] == v ? arcLow[a] : arcHigh[a];
+			int second = arcTail[a] == v ? arcHigh[a] : arcLow[a];
+			// push in reverse so the first half is unpacked first
+			stack.add(second);
+			stack.add(otherEnd(first, v));
+			stack.add(first);
+			stack.add(v);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package comp2402graphEditor;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+public class CrossingIndex {
+	// The pairs of edges of a graph that cross (as Edge.intersects decides),
+	// kept up to date as the graph is edited so that the crossing count shown
+	// while dragging nodes costs nothing to read.
+	// It starts from a full count (EdgeCrossings) and after that only the
+	// edges that changed are looked at: when a node moves, each of its edges
+	// forgets its crossings and is re-tested against the edges near it in the
+	// graph's SpatialIndex, which are the only edges it can cross.
+
+	private final SpatialIndex spatialIndex;
+	private final IdentityHashMap<Edge, ArrayList<Edge>> crossings = new IdentityHashMap<Edge, ArrayList<Edge>>();
+	private int count = 0;
+
+	public CrossingIndex(GraphSnapshot g, SpatialIndex spatialIndex) {
+		this.spatialIndex = spatialIndex;
+		IntList pairs = EdgeCrossings.pairs(g);
+		for (int i = 0; i < pairs.size(); i += 2)
+			addCrossing(g.edge(pairs.get(i)), g.edge(pairs.get(i + 1)));
+	}
+
+	// number of pairs of edges that cross
+	public int count() {return count;}
+
+	// Answer the edges that cross anEdge
+	public ArrayList<Edge> crossingsOf(Edge anEdge) {
+		ArrayList<Edge> result = crossings.get(anEdge);
+		return result != null ? new ArrayList<Edge>(result) : new ArrayList<Edge>();
+	}
+
+	// UPDATES, called by Graph after it updated its SpatialIndex
+
+	public void edgeAdded(Edge anEdge) {
+		for (Edge other : spatialIndex.edgesNear(anEdge))
+			if (EdgeCrossings.cross(anEdge, other))
+				addCrossing(anEdge, other);
+	}
+
+	public void edgeRemoved(Edge anEdge) {
+		ArrayList<Edge> others = crossings.remove(anEdge);
+		if (others == null)
+			return;
+		for (Edge other : others) {
+			ArrayList<Edge> list = crossings.get(other);
+			list.remove(anEdge);
+			if (list.isEmpty())
+				crossings.remove(other);
+		}
+		count -= others.size();
+	}
+
+	// re-test the edges of aNode after it moved
+	public void nodeMoved(Node aNode) {
+		for (Edge anEdge : aNode.incidentEdges()) {
+			edgeRemoved(anEdge);
+			edgeAdded(anEdge);
+		}
+	}
+
+	private void addCrossing(Edge a, Edge b) {
+		crossingList(a).add(b);
+		crossingList(b).add(a);
+		count++;
+	}
+
+	private ArrayList<Edge> crossingList(Edge anEdge) {
+		ArrayList<Edge> list = crossings.get(anEdge);
+		if (list == null)
+			crossings.put(anEdge, list = new ArrayList<Edge>(2));
+		return list;
+	}
+}
@@ -0,0 +1,217 @@
+package comp2402graphEditor;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class DistanceOracle {
+	// Approximate distance oracle of Thorup and Zwick. For a parameter k it
+	// answers distance estimates that are never too small and at most 2k-1 times
+	// the true distance, in O(k) bunch lookups and without searching the graph.
+	//
+	// Nodes are sampled into levels V = A0, A1, ..., A(k-1), each level keeping
+	// a node of the one below with probability n^(-1/k). Every node v stores, for
+	// each level i, its nearest level i node pivot(i,v) with that distance, and
+	// its bunch: the nodes w of level exactly i that are closer to v than any
+	// node of level i+1, each with d(w,v). A query walks up the levels from one
+	// end, alternating ends, until the current pivot lies in the other end's bunch.
+	// Expected size is O(k n^(1+1/k)); everything is kept in primitive arrays.
+
+	public static final int DEFAULT_K = 2; // stretch 3
+
+	private final GraphSnapshot graph; // snapshot the oracle was built on
+	private final int k;
+	private final int[] level; // highest level each node was sampled into
+	private final int[] pivot; // pivot[i * n + v] nearest level i node to v, -1 if none
+	private final double[] pivotDistance; // pivotDistance[i * n + v] distance to that pivot
+
+	// bunches in CSR form: the bunch of v is bunchFirst[v] .. bunchFirst[v+1]-1,
+	// sorted by node index so membership is a binary search
+	private final int[] bunchFirst;
+	private final int[] bunchNode;
+	private final double[] bunchDistance;
+
+	public DistanceOracle(GraphSnapshot g, int k) {
+		graph = g;
+		int n = g.nodeCount();
+		this.k = k = Math.max(1, k);
+		level = new int[n];
+		pivot = new int[k * n];
+		pivotDistance = new double[k * n];
+		SearchContext context = new SearchContext(n);
+
+		// sample the levels, making sure the top level is not empty
+		Random rand = new Random(n); // repeatable for the same graph
+		double keep = Math.pow(n, -1.0 / k);
+		for (int i = 1; i < k; i++) {
+			int kept = 0;
+			int candidate = -1;
+			for (int v = 0; v < n; v++)
+				if (level[v] == i - 1) {
+					candidate = v;
+					if (rand.nextDouble() < keep) {
+						level[v] = i;
+						kept++;
+					}
+				}
+			if (kept == 0 && candidate >= 0)
+				level[candidate] = i;
+		}
+
+		// nearest node of each level; distanceToLevel(k) is infinite
+		for (int i = 0; i < k; i++)
+			nearestOfLevel(i, context);
+
+		// grow the cluster of every node w of level i: the nodes v with
+		// d(w,v) < d(A(i+1), v). w belongs to the bunch of exactly those nodes
+		IntList members = new IntList();
+		IntList owners = new IntList();
+		double[] memberDistance = new double[Math.max(16, n)];
+		for (int w = 0; w < n; w++) {
+			int i = level[w];
+			context.reset(n);
+			IndexedMinHeap frontier = context.frontier;
+			context.setDistance(w, 0.0, -1);
+			frontier.offer(w, 0.0);
+			while (!frontier.isEmpty()) {
+				int v = frontier.poll();
+				context.setVisited(v);
+				double dv = context.distanceTo(v);
+				if (members.size() == memberDistance.length)
+					memberDistance = Arrays.copyOf(memberDistance, memberDistance.length * 2);
+				memberDistance[members.size()] = dv;
+				members.add(w);
+				owners.add(v);
+				for (int arc = g.firstArc[v]; arc < g.firstArc[v + 1]; arc++) {
+					int x = g.arcHead[arc];
+					double d = dv + g.arcWeight[arc];
+					if (d < distanceToLevel(i + 1, x) && !context.isVisited(x) && context.distanceTo(x) > d) {
+						context.setDistance(x, d, g.arcEdge[arc]);
+						frontier.offer(x, d);
+					}
+				}
+			}
+		}
+
+		// bucket the (owner, member) pairs by owner; members come in increasing
+		// node order so every bunch ends up sorted
+		bunchFirst = new int[n + 1];
+		for (int j = 0; j < owners.size(); j++)
+			bunchFirst[owners.get(j) + 1]++;
+		for (int v = 0; v < n; v++)
+			bunchFirst[v + 1] += bunchFirst[v];
+		bunchNode = new int[owners.size()];
+		bunchDistance = new double[owners.size()];
+		int[] next = Arrays.copyOf(bunchFirst, n);
+		for (int j = 0; j < owners.size(); j++) {
+			int slot = next[owners.get(j)]++;
+			bunchNode[slot] = members.get(j);
+			bunchDistance[slot] = memberDistance[j];
+		}
+	}
+
+	private void nearestOfLevel(int i, SearchContext context) {
+		// Dijkstra from all level i nodes at once; each node inherits the pivot
+		// of the node it was reached from
+		GraphSnapshot g = graph;
+		int n = g.nodeCount();
+		int offset = i * n;
+		Arrays.fill(pivot, offset, offset + n, -1);
+		Arrays.fill(pivotDistance, offset, offset + n, Graph.infinity());
+		context.reset(n);
+		IndexedMinHeap frontier = context.frontier;
+		for (int v = 0; v < n; v++)
+			if (level[v] >= i) {
+				context.setDistance(v, 0.0, -1);
+				frontier.offer(v, 0.0);
+				pivot[offset + v] = v;
+			}
+		while (!frontier.isEmpty()) {
+			int v = frontier.poll();
+			context.setVisited(v);
+			pivotDistance[offset + v] = context.distanceTo(v);
+			for (int arc = g.firstArc[v]; arc < g.firstArc[v + 1]; arc++) {
+				int x = g.arcHead[arc];
+				double d = context.distanceTo(v) + g.arcWeight[arc];
+				if (!context.isVisited(x) && context.distanceTo(x) > d) {
+					context.setDistance(x, d, g.arcEdge[arc]);
+					frontier.offer(x, d);
+					pivot[offset + x] = pivot[offset + v];
+				}
+			}
+		}
+	}
+
+	private double distanceToLevel(int i, int v) {
+		return i < k ? pivotDistance[i * graph.nodeCount() + v] : Graph.infinity();
+	}
+
+	public GraphSnapshot getGraph() {return graph;}
+	public int getK() {return k;}
+	public int stretch() {return 2 * k - 1;}
+
+	// QUERY
+
+	// Answer an estimate of the shortest path distance between u and v that is
+	// at least the true distance and at most stretch() times it
+	public double estimateDistance(int u, int v) {
+		int n = graph.nodeCount();
+		int w = u;
+		int i = 0;
+		while (bunchSlot(v, w) < 0) {
+			i++;
+			int swap = u;
+			u = v;
+			v = swap;
+			if (i >= k || pivot[i * n + u] < 0)
+				return Graph.infinity(); // u and v are not connected
+			w = pivot[i * n + u];
+		}
+		return pivotDistance[i * n + u] + bunchDistance[bunchSlot(v, w)];
+	}
+
+	// position of w in the bunch of v, -1 if it is not there
+	private int bunchSlot(int v, int w) {
+		int slot = Arrays.binarySearch(bunchNode, bunchFirst[v], bunchFirst[v + 1], w);
+		return slot >= 0 ? slot : -1;
+	}
+
+	// REPORTING
+
+	// approximate number of bytes used by the oracle's tables
+	public long memoryFootprint() {
+		return 4L * level.length + 4L * pivot.length + 8L * pivotDistance.length + 4L * bunchFirst.length
+				+ 4L * bunchNode.length + 8L * bunchDistance.length;
+	}
+
+	public int bunchEntries() {return bunchNode.length;}
+
+	// Compare estimates with exact distances from sampleCount random sources to
+	// every node they reach. Answer {average stretch, maximum stretch}
+	public double[] measureStretch(int sampleCount, SearchContext context) {
+		int n = graph.nodeCount();
+		Random rand = new Random(sampleCount);
+		double total = 0.0, worst = 1.0;
+		long pairs = 0;
+		for (int s = 0; s < sampleCount && n > 0; s++) {
+			int source = rand.nextInt(n);
+			GraphSearch.shortestPathTree(graph, source, Graph.infinity(), context);
+			for (int j = 0; j < context.reachedCount(); j++) {
+				int t = context.reachedNode(j);
+				double exact = context.distanceTo(t);
+				if (exact <= 0.0)
+					continue;
+				double ratio = estimateDistance(source, t) / exact;
+				total += ratio;
+				worst = Math.max(worst, ratio);
+				pairs++;
+			}
+		}
+		return new double[] {pairs == 0 ? 1.0 : total / pairs, worst};
+	}
+
+	// Oracles look like this: DistanceOracle(k=2, 1630 bunch entries, 20 KB)
+	public String toString() {
+		return "DistanceOracle(k=" + k + ", " + bunchEntries() + " bunch entries, " + memoryFootprint() / 1024
+				+ " KB)";
+	}
+}
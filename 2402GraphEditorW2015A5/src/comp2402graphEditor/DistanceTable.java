@@ -0,0 +1,177 @@
+package comp2402graphEditor;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+public class DistanceTable {
+	// Distance tables between a set of sources and a set of targets, as a dense
+	// double[sources][targets] (Graph.infinity() where there is no path).
+	// One-to-many runs one Dijkstra per source that stops as soon as every
+	// target is settled, instead of one search per pair. The sources can be
+	// spread over a ForkJoinPool, each worker using its own SearchContext.
+	// For large tables the bucket method uses a contraction hierarchy: one
+	// upward search per target leaves (target, distance) entries in buckets at
+	// the nodes it reaches, and one upward search per source combines its
+	// distances with the buckets it finds, so the work grows with
+	// sources + targets instead of sources * targets.
+
+	public static enum Mode {
+		Sequential, Parallel, Buckets
+	}
+
+	public static double[][] compute(Graph aGraph, int[] sources, int[] targets, Mode mode,
+			ThreadLocal<SearchContext> contexts) {
+		if (mode == Mode.Buckets)
+			return buckets(aGraph.contractionHierarchy(), sources, targets, contexts.get());
+		GraphSnapshot g = aGraph.snapshot();
+		double[][] table = new double[sources.length][];
+		TargetSet targetSet = new TargetSet(g.nodeCount(), targets);
+		if (mode == Mode.Parallel)
+			PathBatch.pool(0).invoke(new Rows(g, sources, targetSet, table, contexts, 0, sources.length));
+		else
+			for (int i = 0; i < sources.length; i++)
+				table[i] = oneToMany(g, sources[i], targetSet, contexts.get());
+		return table;
+	}
+
+	// Answer the distances from source to each of the targets
+	public static double[] oneToMany(GraphSnapshot g, int source, int[] targets, SearchContext context) {
+		return oneToMany(g, source, new TargetSet(g.nodeCount(), targets), context);
+	}
+
+	private static double[] oneToMany(GraphSnapshot g, int source, TargetSet targetSet, SearchContext context) {
+		// Dijkstra from source until all distinct targets are settled
+		context.reset(g.nodeCount());
+		IndexedMinHeap frontier = context.frontier;
+		context.setDistance(source, 0.0, -1);
+		frontier.offer(source, 0.0);
+		int targetsLeft = targetSet.distinctCount;
+
+		while (!frontier.isEmpty() && targetsLeft > 0) {
+			int currentNode = frontier.poll();
+			context.setVisited(currentNode);
+			context.settledCount++;
+			if (targetSet.contains(currentNode))
+				targetsLeft--;
+			double currentDistance = context.distanceTo(currentNode);
+			for (int arc = g.firstArc[currentNode]; arc < g.firstArc[currentNode + 1]; arc++) {
+				int neighbour = g.arcHead[arc];
+				double d = currentDistance + g.arcWeight[arc];
+				if (!context.isVisited(neighbour) && context.distanceTo(neighbour) > d) {
+					context.setDistance(neighbour, d, g.arcEdge[arc]);
+					frontier.offer(neighbour, d);
+				}
+			}
+		}
+		double[] row = new double[targetSet.targets.length];
+		for (int j = 0; j < row.length; j++)
+			row[j] = context.isVisited(targetSet.targets[j]) ? context.distanceTo(targetSet.targets[j])
+					: Graph.infinity();
+		return row;
+	}
+
+	public static double[][] buckets(ContractionHierarchy ch, int[] sources, int[] targets, SearchContext context) {
+		int n = ch.getGraph().nodeCount();
+
+		// backward upward search from every target, collected into buckets by node
+		IntList entryNode = new IntList();
+		IntList entryTarget = new IntList();
+		double[] entryDistance = new double[16];
+		for (int j = 0; j < targets.length; j++) {
+			ch.upwardSearch(targets[j], context);
+			for (int i = 0; i < context.reachedCount(); i++) {
+				int v = context.reachedNode(i);
+				if (entryNode.size() == entryDistance.length)
+					entryDistance = Arrays.copyOf(entryDistance, entryDistance.length * 2);
+				entryDistance[entryNode.size()] = context.distanceTo(v);
+				entryNode.add(v);
+				entryTarget.add(j);
+			}
+		}
+		int[] bucketFirst = new int[n + 1];
+		for (int k = 0; k < entryNode.size(); k++)
+			bucketFirst[entryNode.get(k) + 1]++;
+		for (int v = 0; v < n; v++)
+			bucketFirst[v + 1] += bucketFirst[v];
+		int[] bucketTarget = new int[entryNode.size()];
+		double[] bucketDistance = new double[entryNode.size()];
+		int[] next = Arrays.copyOf(bucketFirst, n);
+		for (int k = 0; k < entryNode.size(); k++) {
+			int slot = next[entryNode.get(k)]++;
+			bucketTarget[slot] = entryTarget.get(k);
+			bucketDistance[slot] = entryDistance[k];
+		}
+
+		// forward upward search from every source, scanning the buckets it reaches
+		double[][] table = new double[sources.length][targets.length];
+		for (int s = 0; s < sources.length; s++) {
+			double[] row = table[s];
+			Arrays.fill(row, Graph.infinity());
+			ch.upwardSearch(sources[s], context);
+			for (int i = 0; i < context.reachedCount(); i++) {
+				int v = context.reachedNode(i);
+				double dv = context.distanceTo(v);
+				for (int slot = bucketFirst[v]; slot < bucketFirst[v + 1]; slot++) {
+					double d = dv + bucketDistance[slot];
+					if (d < row[bucketTarget[slot]])
+						row[bucketTarget[slot]] = d;
+				}
+			}
+		}
+		return table;
+	}
+
+	// The targets of a table, with a per-node lookup of whether a node is one of them
+	private static class TargetSet {
+		final int[] targets;
+		final boolean[] isTarget;
+		int distinctCount = 0;
+
+		TargetSet(int n, int[] targets) {
+			this.targets = targets;
+			isTarget = new boolean[n];
+			for (int t : targets)
+				if (!isTarget[t]) {
+					isTarget[t] = true;
+					distinctCount++;
+				}
+		}
+
+		boolean contains(int v) {return isTarget[v];}
+	}
+
+	// the rows from .. to-1 of a table, split in half until small enough
+	private static class Rows extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private static final int ROWS_PER_TASK = 4;
+		private final GraphSnapshot g;
+		private final int[] sources;
+		private final TargetSet targetSet;
+		private final double[][] table;
+		private final ThreadLocal<SearchContext> contexts;
+		private final int from, to;
+
+		Rows(GraphSnapshot g, int[] sources, TargetSet targetSet, double[][] table,
+				ThreadLocal<SearchContext> contexts, int from, int to) {
+			this.g = g;
+			this.sources = sources;
+			this.targetSet = targetSet;
+			this.table = table;
+			this.contexts = contexts;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > ROWS_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Rows(g, sources, targetSet, table, contexts, from, middle),
+						new Rows(g, sources, targetSet, table, contexts, middle, to));
+				return;
+			}
+			SearchContext context = contexts.get();
+			for (int i = from; i < to; i++)
+				table[i] = oneToMany(g, sources[i], targetSet, context);
+		}
+	}
+}
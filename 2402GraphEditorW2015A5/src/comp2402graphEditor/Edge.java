@@ -13,6 +13,8 @@ public class Edge {
 	private Node	endNode		= null;
 	private boolean selected	= false; 
 	private boolean marked		= false;
+	private int		index		= -1;	//position of this edge in its graph's edge list
+	private int		length		= -1;	//cached (int) graphicalLength(), -1 after an end node moved
 //////////////////////////////////////////////////////////////////////////////////////////////////////////////
 //Getters and Setters/////////////////////////////////////////////////////////////////////////////////////////
 //////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -21,21 +23,29 @@ public class Edge {
 	public Node		getEndNode() 	{ return endNode; }
 	public boolean 	isMarked() 		{ return selected; }
 	public boolean 	isSelected() 	{ return selected; }
+	public int		getIndex()		{ return index; }
+	boolean 		hasAssignedWeight() { return weight > 0; } // otherwise the weight is the length
 	public int 	getWeight() {
-		if(weight <= 0)	{ return (int) graphicalLength();} 
-		else	{ return weight;}
+		if(weight > 0)	{ return weight;}
+		if(length < 0)	{ length = (int) graphicalLength();} //unassigned weights are the length
+		return length;
 	} 
 	
 	public void setLabel(String newLabel)	{ label	= newLabel; }
-	public void setStartNode(Node aNode)	{ startNode = aNode; }
-	public void setEndNode(Node aNode) 		{ endNode 	= aNode; }
+	public void setStartNode(Node aNode)	{ startNode = aNode; length = -1; }
+	public void setEndNode(Node aNode) 		{ endNode 	= aNode; length = -1; }
 	public void setMarked(boolean state) 	{ marked 	= state; }
 	public void setSelected(boolean state) 	{ selected 	= state; }
 	public void toggleMarked() 				{ marked 	= !marked; }
 	public void toggleSelected() 			{ selected 	= !selected; }
+	void 		setIndex(int anIndex)		{ index 	= anIndex; }
+	void 		endMoved()					{ length 	= -1; } //called by Node when an end node moves
 	public void setWeight(int newWeight) { 
-		if(weight > 0) weight = newWeight; 
+		//a weight of 0 or less clears the assigned weight, the edge length is used again
+		weight = newWeight > 0 ? newWeight : -1; 
+		if(startNode != null && startNode.getGraph() != null) startNode.getGraph().geometryChanged();
 	}
+	public void clearWeight()			{ setWeight(-1); }
 //////////////////////////////////////////////////////////////////////////////////////////////////////////////
 //Constructors////////////////////////////////////////////////////////////////////////////////////////////////
 //////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -68,10 +78,10 @@ public class Edge {
 		//Return the actual graphical display length of the edge
 		Node n1 = startNode; 
 		Node n2 = endNode; 
-		return Math.sqrt ((double) ((n2.getLocation().x - n1.getLocation().x) *                            
-				(n2.getLocation().x - n1.getLocation().x) +
-				(n2.getLocation().y - n1.getLocation().y) * 
-				(n2.getLocation().y - n1.getLocation().y)));
+		return Math.sqrt ((double) ((n2.getX() - n1.getX()) *                            
+				(n2.getX() - n1.getX()) +
+				(n2.getY() - n1.getY()) * 
+				(n2.getY() - n1.getY())));
 	}
 
 	public boolean connects(Node a, Node b) {
@@ -94,8 +104,8 @@ public class Edge {
 
 	public boolean containsPoint(Point p) {
 		//Returns true if the given point is on the graphical line
-		double xs = startNode.getLocation().getX();
-		double xe = endNode.getLocation().getX();
+		double xs = startNode.getX();
+		double xe = endNode.getX();
 		if (xs >= xe){
 			if( (p.getX() >= xs) || (p.getX() <= xe)) 	{ return false;}
 		} else if (xs < xe){
@@ -108,8 +118,8 @@ public class Edge {
 		//Return the middle of the graphical line
 		int	midPointX;
 		int midPointY;
-		midPointX = (getStartNode().getLocation().x + getEndNode().getLocation().x) / 2;
-		midPointY = (getStartNode().getLocation().y + getEndNode().getLocation().y) / 2;
+		midPointX = (getStartNode().getX() + getEndNode().getX()) / 2;
+		midPointY = (getStartNode().getY() + getEndNode().getY()) / 2;
 		return new Point(midPointX,midPointY);
 	}
 
@@ -124,14 +134,14 @@ public class Edge {
 		if (endNode == e.endNode) 	{ return null;}
 		if (endNode == e.startNode) { return null;}
 
-		double x1 = startNode.getLocation().getX();
-		double x2 = endNode.getLocation().getX();
-		double y1 = startNode.getLocation().getY();
-		double y2 = endNode.getLocation().getY();
-		double x3 = e.startNode.getLocation().getX();
-		double x4 = e.endNode.getLocation().getX();
-		double y3 = e.startNode.getLocation().getY();
-		double y4 = e.endNode.getLocation().getY();
+		double x1 = startNode.getX();
+		double x2 = endNode.getX();
+		double y1 = startNode.getY();
+		double y2 = endNode.getY();
+		double x3 = e.startNode.getX();
+		double x4 = e.endNode.getX();
+		double y3 = e.startNode.getY();
+		double y4 = e.endNode.getY();
 
 		//CASE 1 Parallel
 		if(((x2-x1) == 0.0 ) && ((x4-x3) == 0.0 )){
@@ -227,15 +237,16 @@ public class Edge {
 		else {
 			aPen.setColor(Graph.NORMAL_EDGE_COLOR);
 		}
-		aPen.drawLine(startNode.getLocation().x, startNode.getLocation().y,
-				endNode.getLocation().x, endNode.getLocation().y);
+		aPen.drawLine(startNode.getX(), startNode.getY(),
+				endNode.getX(), endNode.getY());
 
 		if(displayWeights){
 			Font oldFont = aPen.getFont(); //cache any font currently in use
 			aPen.setFont(Node.labelFont);
 			aPen.setColor(Color.blue);
-			Point midPoint = midPoint();
-			aPen.drawString(String.valueOf(getWeight()), midPoint.x, midPoint.y - Node.RADIUS);
+			int midPointX = (startNode.getX() + endNode.getX()) / 2;
+			int midPointY = (startNode.getY() + endNode.getY()) / 2;
+			aPen.drawString(String.valueOf(getWeight()), midPointX, midPointY - Node.RADIUS);
 			aPen.setFont(oldFont);
 		}
 		//return pen to old stroke
@@ -246,11 +257,12 @@ public class Edge {
 	public void drawWithPenColor(Graphics aPen, boolean displayWeights) {
 		// Draw a line from the center of the startNode to the center of the endNode
 		//using aPen's current color ---used for erasing
-		aPen.drawLine(startNode.getLocation().x, startNode.getLocation().y,
-				endNode.getLocation().x, endNode.getLocation().y);
+		aPen.drawLine(startNode.getX(), startNode.getY(),
+				endNode.getX(), endNode.getY());
 		if(displayWeights){
-			Point midPoint = midPoint();
-			aPen.drawString(String.valueOf(getWeight()), midPoint.x, midPoint.y - Node.RADIUS);
+			int midPointX = (startNode.getX() + endNode.getX()) / 2;
+			int midPointY = (startNode.getY() + endNode.getY()) / 2;
+			aPen.drawString(String.valueOf(getWeight()), midPointX, midPointY - Node.RADIUS);
 		}
 	}
 
@@ -402,6 +414,24 @@ public class Edge {
 		return false;
 	}
 
+	public boolean parseNodeLocationString(String aString, HashMap<Long, Node> nodesByLocation){
+		//If the string aString is a start or end location then set the end node to
+		//the node of the graph at that location (looked up in nodesByLocation,
+		//see Graph.locationKey) and return true, otherwise return false
+		boolean isStart = aString.startsWith(startNodeLocationTag) && aString.endsWith(startNodeLocationEndTag);
+		boolean isEnd = aString.startsWith(endNodeLocationTag) && aString.endsWith(endNodeLocationEndTag);
+		if(!isStart && !isEnd) return false;
+		String beginTag = isStart ? startNodeLocationTag : endNodeLocationTag;
+		String endTag = isStart ? startNodeLocationEndTag : endNodeLocationEndTag;
+		String dataString = aString.substring(beginTag.length(), aString.length() - endTag.length());
+		int comma = dataString.indexOf(',');
+		Node aNode = nodesByLocation.get(Graph.locationKey(Integer.parseInt(dataString.substring(0, comma).trim()),
+				Integer.parseInt(dataString.substring(comma + 1).trim())));
+		if(isStart) setStartNode(aNode);
+		else setEndNode(aNode);
+		return true;
+	}
+
 	public boolean parseSingletonPropertyString(String aString){
 		//If the string aString is a singleton tag property then set that property and
 		//return true, otherwise return false
@@ -433,8 +463,8 @@ public class Edge {
 		if(this.label != null && !this.label.isEmpty())
 			outputFile.println(indent + labelTag  + label +  labelEndTag);
 
-		outputFile.println(indent + startNodeLocationTag  + startNode.getLocation().x + "," + startNode.getLocation().y + startNodeLocationEndTag);
-		outputFile.println(indent + endNodeLocationTag + endNode.getLocation().x + "," + endNode.getLocation().y + endNodeLocationEndTag);
+		outputFile.println(indent + startNodeLocationTag  + startNode.getX() + "," + startNode.getY() + startNodeLocationEndTag);
+		outputFile.println(indent + endNodeLocationTag + endNode.getX() + "," + endNode.getY() + endNodeLocationEndTag);
 
 		if(this.isSelected()) outputFile.println(baseIndent + tab + selectedTag);
 		if(this.isMarked()) outputFile.println(baseIndent + tab + markedTag);
@@ -446,7 +476,13 @@ public class Edge {
 	}
 
 	public static Edge parseFromFile(String openingTag, BufferedReader inputFile){
+		return parseFromFile(openingTag, inputFile, null);
+	}
+
+	public static Edge parseFromFile(String openingTag, BufferedReader inputFile, HashMap<Long, Node> nodesByLocation){
 		//Parse in an edge from the XML input file
+		//If nodesByLocation is given the end nodes are looked up in it, otherwise
+		//they are temporary nodes at the end locations
 		//The opening tag is the first tag that was stripped of by and outer level of
 		//parsing
 		// <edge>
@@ -468,6 +504,8 @@ public class Edge {
 				if(dataString.length() ==0){
 					//do nothing, but allow for blank lines;
 				}
+				//see if the dataString is an end location of a known node
+				else if(nodesByLocation != null && parsedModel.parseNodeLocationString(dataString, nodesByLocation)) {}
 				//see if the dataString is of the form "<tag> data </tag>"
 				else if(parsedModel.parsePropertyString(dataString)) {}
 				//see if the dataString is of the form "<tag/>
@@ -0,0 +1,215 @@
+package comp2402graphEditor;
+
+import java.util.concurrent.RecursiveTask;
+
+public class EdgeCrossings {
+	// Counts the pairs of edges of a snapshot that cross, by the same test as
+	// Edge.intersects, without testing every pair.
+	// The drawing is cut into a uniform grid sized so that a cell holds a few
+	// edges, and every edge is filed under the cells its line passes through.
+	// Two edges can only cross in a cell they share, so only edges sharing a
+	// cell are tested (bounding boxes first). A pair sharing several cells is
+	// counted only in the cell of its crossing point.
+	// Everything works on the snapshot's int coordinates and allocates nothing
+	// per test. When there are many edges the cells are counted in parallel.
+
+	private static final int MARGIN = 2; // pixels; edges are filed under cells this close to their line
+	private static final int PARALLEL_THRESHOLD = 20000; // filed entries worth splitting over threads
+	private static final int CELLS_PER_TASK = 256;
+
+	private final GraphSnapshot graph;
+	private final int minX, minY, cellSize, columns, rows;
+	private final int[] cellFirst; // edges of cell c are cellEdge[cellFirst[c] .. cellFirst[c+1]-1]
+	private final int[] cellEdge;
+
+	// Answer the number of pairs of edges of g that cross
+	public static int count(GraphSnapshot g) {
+		return new EdgeCrossings(g).count();
+	}
+
+	// Answer the pairs of edges of g that cross, as edge indices e0, f0, e1, f1, ...
+	public static IntList pairs(GraphSnapshot g) {
+		EdgeCrossings crossings = new EdgeCrossings(g);
+		IntList result = new IntList();
+		crossings.countCells(0, crossings.columns * crossings.rows, result);
+		return result;
+	}
+
+	// Answer whether edges a and b cross, by the same test without a snapshot
+	public static boolean cross(Edge a, Edge b) {
+		if (a == b)
+			return false;
+		Node s1 = a.getStartNode(), e1 = a.getEndNode(), s2 = b.getStartNode(), e2 = b.getEndNode();
+		if (s1 == e2 || s1 == s2 || e1 == e2 || e1 == s2)
+			return false;
+		return !Double.isNaN(crossingX(s1.getX(), s1.getY(), e1.getX(),
+				e1.getY(), s2.getX(), s2.getY(), e2.getX(), e2.getY()));
+	}
+
+	private EdgeCrossings(GraphSnapshot g) {
+		graph = g;
+		int n = g.nodeCount();
+		int m = g.edgeCount();
+		int loX = 0, hiX = 0, loY = 0, hiY = 0;
+		for (int v = 0; v < n; v++) {
+			if (v == 0 || g.x[v] < loX) loX = g.x[v];
+			if (v == 0 || g.x[v] > hiX) hiX = g.x[v];
+			if (v == 0 || g.y[v] < loY) loY = g.y[v];
+			if (v == 0 || g.y[v] > hiY) hiY = g.y[v];
+		}
+		minX = loX - MARGIN;
+		minY = loY - MARGIN;
+		long width = (long) hiX - loX + 2 * MARGIN + 1;
+		long height = (long) hiY - loY + 2 * MARGIN + 1;
+		// about one cell per edge
+		cellSize = (int) Math.max(16, Math.ceil(Math.sqrt((double) width * height / Math.max(1, m))));
+		columns = (int) (width / cellSize) + 1;
+		rows = (int) (height / cellSize) + 1;
+
+		IntList entryCell = new IntList();
+		IntList entryEdge = new IntList();
+		for (int e = 0; e < m; e++)
+			fileEdge(e, entryCell, entryEdge);
+		int cellCount = columns * rows;
+		cellFirst = new int[cellCount + 1];
+		for (int i = 0; i < entryCell.size(); i++)
+			cellFirst[entryCell.get(i) + 1]++;
+		for (int c = 0; c < cellCount; c++)
+			cellFirst[c + 1] += cellFirst[c];
+		cellEdge = new int[entryCell.size()];
+		int[] next = java.util.Arrays.copyOf(cellFirst, cellCount);
+		for (int i = 0; i < entryCell.size(); i++)
+			cellEdge[next[entryCell.get(i)]++] = entryEdge.get(i);
+	}
+
+	private int columnOf(double x) {return (int) Math.floor((x - minX) / cellSize);}
+	private int rowOf(double y) {return (int) Math.floor((y - minY) / cellSize);}
+
+	// file edge e under every cell its line passes within MARGIN of
+	private void fileEdge(int e, IntList entryCell, IntList entryEdge) {
+		GraphSnapshot g = graph;
+		double x1 = g.x[g.edgeStart[e]], y1 = g.y[g.edgeStart[e]];
+		double x2 = g.x[g.edgeEnd[e]], y2 = g.y[g.edgeEnd[e]];
+		if (x1 == x2)
+			return; // Edge.intersects never reports a vertical edge crossing
+		if (x1 > x2) {
+			double swap = x1; x1 = x2; x2 = swap;
+			swap = y1; y1 = y2; y2 = swap;
+		}
+		double slope = (y2 - y1) / (x2 - x1);
+		for (int column = columnOf(x1 - MARGIN); column <= columnOf(x2 + MARGIN); column++) {
+			double left = Math.max(x1, (double) column * cellSize + minX - MARGIN);
+			double right = Math.min(x2, (double) (column + 1) * cellSize + minX + MARGIN);
+			double yLeft = y1 + slope * (left - x1);
+			double yRight = y1 + slope * (right - x1);
+			int fromRow = Math.max(0, rowOf(Math.min(yLeft, yRight) - MARGIN));
+			int toRow = Math.min(rows - 1, rowOf(Math.max(yLeft, yRight) + MARGIN));
+			if (column < 0 || column >= columns)
+				continue;
+			for (int row = fromRow; row <= toRow; row++) {
+				entryCell.add(row * columns + column);
+				entryEdge.add(e);
+			}
+		}
+	}
+
+	private int count() {
+		int cellCount = columns * rows;
+		if (cellEdge.length >= PARALLEL_THRESHOLD && PathBatch.pool(0).getParallelism() > 1)
+			return (int) (long) PathBatch.pool(0).invoke(new Cells(0, cellCount));
+		return (int) countCells(0, cellCount, null);
+	}
+
+	// count the crossings in cells from .. to-1, adding them to pairs unless it is null
+	private long countCells(int from, int to, IntList pairs) {
+		GraphSnapshot g = graph;
+		long count = 0;
+		for (int c = from; c < to; c++)
+			for (int i = cellFirst[c]; i < cellFirst[c + 1]; i++) {
+				int e = cellEdge[i];
+				for (int j = i + 1; j < cellFirst[c + 1]; j++) {
+					int f = cellEdge[j];
+					if (!boxesOverlap(g, e, f))
+						continue;
+					if (crossingCell(g, e, f) == c) {
+						count++;
+						if (pairs != null) {
+							pairs.add(e);
+							pairs.add(f);
+						}
+					}
+				}
+			}
+		return count;
+	}
+
+	private static boolean boxesOverlap(GraphSnapshot g, int e, int f) {
+		int a = g.edgeStart[e], b = g.edgeEnd[e], c = g.edgeStart[f], d = g.edgeEnd[f];
+		return Math.max(g.x[a], g.x[b]) >= Math.min(g.x[c], g.x[d])
+				&& Math.max(g.x[c], g.x[d]) >= Math.min(g.x[a], g.x[b])
+				&& Math.max(g.y[a], g.y[b]) >= Math.min(g.y[c], g.y[d])
+				&& Math.max(g.y[c], g.y[d]) >= Math.min(g.y[a], g.y[b]);
+	}
+
+	// Answer the cell of the point where edges e and f cross, -1 if they don't
+	private int crossingCell(GraphSnapshot g, int e, int f) {
+		int s1 = g.edgeStart[e], e1 = g.edgeEnd[e], s2 = g.edgeStart[f], e2 = g.edgeEnd[f];
+		if (s1 == e2 || s1 == s2 || e1 == e2 || e1 == s2)
+			return -1; // edges with end points in common don't cross
+		double xIntersect = crossingX(g.x[s1], g.y[s1], g.x[e1], g.y[e1], g.x[s2], g.y[s2], g.x[e2], g.y[e2]);
+		if (Double.isNaN(xIntersect))
+			return -1;
+		double m1 = (double) (g.y[e1] - g.y[s1]) / (g.x[e1] - g.x[s1]);
+		double yIntersect = (m1 * xIntersect) + (g.y[s1] - (m1 * g.x[s1]));
+		int column = columnOf((int) xIntersect), row = rowOf(yIntersect);
+		if (column < 0 || column >= columns || row < 0 || row >= rows)
+			return -1;
+		return row * columns + column;
+	}
+
+	// Answer the x coordinate where the lines (x1,y1)-(x2,y2) and (x3,y3)-(x4,y4)
+	// cross, NaN if Edge.intersects would not report a crossing. This is the
+	// arithmetic of Edge.intersects on primitive coordinates
+	static double crossingX(double x1, double y1, double x2, double y2, double x3, double y3, double x4, double y4) {
+		if (x2 - x1 == 0.0 || x4 - x3 == 0.0)
+			return Double.NaN; // vertical edges are never reported
+		double m1 = (y2 - y1) / (x2 - x1);
+		double b1 = y1 - (m1 * x1);
+		double m2 = (y4 - y3) / (x4 - x3);
+		double b2 = y3 - (m2 * x3);
+		if (m1 == m2)
+			return Double.NaN; // parallel
+		double xIntersect = (b2 - b1) / (m1 - m2);
+		int x = (int) xIntersect;
+		if (!strictlyBetween(x, x1, x2) || !strictlyBetween(x, x3, x4))
+			return Double.NaN;
+		return xIntersect;
+	}
+
+	// Edge.containsPoint: x lies strictly between the ends' x coordinates
+	private static boolean strictlyBetween(int x, double xs, double xe) {
+		return xs >= xe ? x < xs && x > xe : x < xe && x > xs;
+	}
+
+	// the crossings counted in cells from .. to-1, split in half until small enough
+	private class Cells extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+		private final int from, to;
+
+		Cells(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Long compute() {
+			if (to - from > CELLS_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				Cells right = new Cells(middle, to);
+				right.fork();
+				long left = new Cells(from, middle).compute();
+				return left + right.join();
+			}
+			return countCells(from, to, null);
+		}
+	}
+}
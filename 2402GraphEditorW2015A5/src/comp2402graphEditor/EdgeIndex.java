@@ -0,0 +1,125 @@
+package comp2402graphEditor;
+
+public class EdgeIndex {
+	// A hash table from an unordered pair of nodes to the edge between them,
+	// used by Graph.edgeBetween and Node.isConnectedTo instead of scanning
+	// incident edge lists.
+	// The pair is packed into one long from the nodes' ids (which, unlike their
+	// indices, never change while the node is in the graph), the smaller id in
+	// the high half. Open addressing with linear probing keeps keys in a
+	// primitive long[]; deletion shifts later entries back so no tombstones build up.
+
+	private long[] keys;
+	private Edge[] values; // null marks an empty slot
+	private int size = 0;
+	private int mask; // table length - 1, the length is a power of two
+
+	public EdgeIndex() {
+		this(16);
+	}
+
+	public EdgeIndex(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2)
+			capacity <<= 1;
+		keys = new long[capacity];
+		values = new Edge[capacity];
+		mask = capacity - 1;
+	}
+
+	public int size() {return size;}
+
+	// make room for expectedSize edges without growing again
+	public void ensureCapacity(int expectedSize) {
+		int capacity = values.length;
+		while (capacity < expectedSize * 2)
+			capacity <<= 1;
+		if (capacity > values.length)
+			resize(capacity);
+	}
+
+	// the key of the unordered pair a, b
+	public static long key(Node a, Node b) {
+		int low = Math.min(a.getId(), b.getId());
+		int high = Math.max(a.getId(), b.getId());
+		return ((long) low << 32) | (high & 0xffffffffL);
+	}
+
+	private int slotOf(long key) {
+		// spread the bits of both ids over the table index
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	// Answer the edge between a and b, null if there is none
+	public Edge get(Node a, Node b) {
+		long key = key(a, b);
+		for (int slot = slotOf(key); values[slot] != null; slot = (slot + 1) & mask)
+			if (keys[slot] == key)
+				return values[slot];
+		return null;
+	}
+
+	// Record anEdge under its end nodes, replacing any edge already there
+	public void put(Edge anEdge) {
+		if (2 * (size + 1) > values.length)
+			resize(values.length * 2);
+		long key = key(anEdge.getStartNode(), anEdge.getEndNode());
+		int slot = slotOf(key);
+		for (; values[slot] != null; slot = (slot + 1) & mask)
+			if (keys[slot] == key) {
+				values[slot] = anEdge;
+				return;
+			}
+		keys[slot] = key;
+		values[slot] = anEdge;
+		size++;
+	}
+
+	// Forget anEdge if it is the edge recorded for its end nodes
+	public void remove(Edge anEdge) {
+		long key = key(anEdge.getStartNode(), anEdge.getEndNode());
+		int slot = slotOf(key);
+		for (; values[slot] != null; slot = (slot + 1) & mask)
+			if (keys[slot] == key)
+				break;
+		if (values[slot] != anEdge)
+			return;
+		values[slot] = null;
+		size--;
+
+		// shift back the following entries that probed past the freed slot
+		int free = slot;
+		for (slot = (slot + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+			int home = slotOf(keys[slot]);
+			// move the entry unless its home lies cyclically in (free, slot]
+			if (free <= slot ? (home <= free || home > slot) : (home <= free && home > slot)) {
+				keys[free] = keys[slot];
+				values[free] = values[slot];
+				values[slot] = null;
+				free = slot;
+			}
+		}
+	}
+
+	public void clear() {
+		java.util.Arrays.fill(values, null);
+		size = 0;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Edge[] oldValues = values;
+		keys = new long[capacity];
+		values = new Edge[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++)
+			if (oldValues[i] != null) {
+				int slot = slotOf(oldKeys[i]);
+				while (values[slot] != null)
+					slot = (slot + 1) & mask;
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+	}
+}
@@ -10,16 +10,42 @@ public class Graph {
 
 	private ArrayList<Node> nodes; // The nodes of the graph
 	private ArrayList<Edge> edges; // The edges of the graph
+	private EdgeIndex edgeIndex; // the edges by their end nodes, for edgeBetween
+	private SpatialIndex spatialIndex = null; // nodes and edges by location, built on the first hit test
+	private CrossingIndex crossingIndex = null; // crossing edge pairs, kept once first counted
+	private LabelIndex labelIndex; // nodes by label, for nodeNamed and label searches
+	private int nextNodeId = 0; // id for the next node added
 
 	private GraphEditor owner = null; // editor which is currently editing this graph
 
+	// CSR copy of the graph handed to the algorithms, rebuilt lazily after changes
+	private GraphSnapshot snapshot = null;
+	private boolean topologyChanged = true; // nodes or edges added/removed since snapshot
+	private boolean geometryChanged = false; // nodes moved or weights changed since snapshot
+	private int changeCount = 0; // number of edits made to the graph, see changeCount()
+	private Landmarks landmarks = null; // distance tables for AStarLandmarks, computed on demand
+	private ContractionHierarchy hierarchy = null; // for ContractionHierarchies, built on demand
+	private ArcFlags arcFlags = null; // for ArcFlags, computed on demand
+	private DistanceOracle oracle = null; // for estimateDistance, built on demand
+	private int oracleK = DistanceOracle.DEFAULT_K; // oracle stretch is 2k-1
+
+	// search state reused by queries that don't bring their own SearchContext;
+	// one per thread so that such queries can still run concurrently
+	private final ThreadLocal<SearchContext> searchContexts = new ThreadLocal<SearchContext>() {
+		protected SearchContext initialValue() {
+			return new SearchContext();
+		}
+	};
+
 	Random rand = new Random(); // used by algorithms that need a random number
 
 	// Global Values to be used by sub-graph enumeration algorithms
 
 	public static enum PathFindingMethod {
 		Dijkstra, AStarLowerBound, AStarManhattan, 
-		AStarZeroCostHeuristic, AStarBestFirstGreedy, GreedyBestNeighbour
+		AStarZeroCostHeuristic, AStarBestFirstGreedy, GreedyBestNeighbour,
+		BidirectionalDijkstra, BidirectionalAStar, AStarLandmarks,
+		ContractionHierarchies, ArcFlags, YenKShortestPaths
 	}
 	/////////////////////////////////////////////////////////////////////////////////////////
 	//GETTERS AND SETTER/////////////////////////////////////////////////////////////////////
@@ -43,25 +69,52 @@ public class Graph {
 			return "AStarBestFirstGreedy";
 		else if (aPathFindingMethod == PathFindingMethod.GreedyBestNeighbour)
 			return "GreedyBestNeighbour";
+		else if (aPathFindingMethod == PathFindingMethod.BidirectionalDijkstra)
+			return "BidirectionalDijkstra";
+		else if (aPathFindingMethod == PathFindingMethod.BidirectionalAStar)
+			return "BidirectionalAStar";
+		else if (aPathFindingMethod == PathFindingMethod.AStarLandmarks)
+			return "AStarLandmarks";
+		else if (aPathFindingMethod == PathFindingMethod.ContractionHierarchies)
+			return "ContractionHierarchies";
+		else if (aPathFindingMethod == PathFindingMethod.ArcFlags)
+			return "ArcFlags";
+		else if (aPathFindingMethod == PathFindingMethod.YenKShortestPaths)
+			return "YenKShortestPaths";
 		return "UNKNOWN";
 
 	}
 
 	// helper method to determine distance between two points
 	public static double distanceBetween(Point a, Point b){
-		return Math.abs(Math.sqrt(Math.pow(a.getX() - b.getX(), 2) + Math.pow((a.getY() - b.getY()), 2)));
+		return distanceBetween(a.x, a.y, b.x, b.y);
+	}
+
+	// helper method to determine distance between two locations given by their coordinates
+	public static double distanceBetween(int x1, int y1, int x2, int y2) {
+		double dx = x2 - x1;
+		double dy = y2 - y1;
+		return Math.sqrt(dx * dx + dy * dy);
 	}
 	
+	// key of a location in maps from locations to nodes; x and y are packed
+	// into a long and scrambled (one to one) so that Long.hashCode spreads them
+	public static long locationKey(int x, int y) {
+		return (((long) x << 32) | (y & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+	}
+
 	// helper method to determine distance between two nodes
 	public static double distanceBetween(Node n1, Node n2) {
-		return Math.sqrt((n2.getLocation().x - n1.getLocation().x) * (n2.getLocation().x 
-				- n1.getLocation().x)+ (n2.getLocation().y - n1.getLocation().y) 
-				* (n2.getLocation().y - n1.getLocation().y));
+		return Math.sqrt((n2.getX() - n1.getX()) * (n2.getX() 
+				- n1.getX())+ (n2.getY() - n1.getY()) 
+				* (n2.getY() - n1.getY()));
 	}
 
 	public Graph() {
 		nodes = new ArrayList<Node>(); // nodes of the graph
 		edges = new ArrayList<Edge>(); // edges of the graph
+		edgeIndex = new EdgeIndex();
+		labelIndex = new LabelIndex();
 	}
 
 	public static double infinity() {
@@ -105,8 +158,143 @@ public class Graph {
 		return ("GRAPH: " + "(" + nodes.size() + " nodes, " + edges.size() + " edges)");
 	}
 
+	// Answer a read-only CSR snapshot of the graph for use by algorithms.
+	// The same snapshot is returned until the graph changes; after a change only
+	// the parts that changed are rebuilt
+	public synchronized GraphSnapshot snapshot() {
+		if (snapshot == null || topologyChanged)
+			snapshot = new GraphSnapshot(nodes, edges);
+		else if (geometryChanged)
+			snapshot = snapshot.withCurrentGeometry();
+		topologyChanged = false;
+		geometryChanged = false;
+		return snapshot;
+	}
+
+	// Answer the search context of the calling thread. It is reset in O(1)
+	// at the start of each search, so reusing it keeps repeated queries as
+	// cheap as the part of the graph they actually explore
+	public SearchContext searchContext() {
+		return searchContexts.get();
+	}
+
+	// Answer the landmark tables for the current graph, computing them if there
+	// are none yet or the graph has changed since they were computed
+	public synchronized Landmarks landmarks() {
+		GraphSnapshot g = snapshot();
+		if (landmarks == null || landmarks.getGraph() != g)
+			landmarks = Landmarks.compute(g, Landmarks.DEFAULT_COUNT, Landmarks.Strategy.Avoid);
+		return landmarks;
+	}
+
+	// answer whether landmark tables exist for the current graph
+	public synchronized boolean hasLandmarks() {
+		return landmarks != null && landmarks.getGraph() == snapshot();
+	}
+
+	// use previously computed landmarks, e.g. ones read from a file
+	public synchronized void setLandmarks(Landmarks someLandmarks) {
+		landmarks = someLandmarks;
+	}
+
+	// recompute the landmark tables with k landmarks chosen by the given strategy
+	public synchronized Landmarks computeLandmarks(int k, Landmarks.Strategy strategy) {
+		landmarks = Landmarks.compute(snapshot(), k, strategy);
+		return landmarks;
+	}
+
+	// Answer the contraction hierarchy of the current graph, building it if there
+	// is none yet or the graph has changed since it was built
+	public synchronized ContractionHierarchy contractionHierarchy() {
+		GraphSnapshot g = snapshot();
+		if (hierarchy == null || hierarchy.getGraph() != g)
+			hierarchy = new ContractionHierarchy(g);
+		return hierarchy;
+	}
+
+	// Answer the arc flags of the current graph, computing them if there are
+	// none yet or the graph has changed since they were computed
+	public synchronized ArcFlags arcFlags() {
+		GraphSnapshot g = snapshot();
+		if (arcFlags == null || arcFlags.getGraph() != g)
+			arcFlags = new ArcFlags(g, ArcFlags.DEFAULT_CELLS);
+		return arcFlags;
+	}
+
+	// Answer the approximate distance oracle of the current graph, building it
+	// if there is none yet or the graph has changed since it was built
+	public synchronized DistanceOracle distanceOracle() {
+		GraphSnapshot g = snapshot();
+		if (oracle == null || oracle.getGraph() != g || oracle.getK() != oracleK)
+			oracle = new DistanceOracle(g, oracleK);
+		return oracle;
+	}
+
+	// choose the oracle's stretch 2k-1; larger k gives a smaller, coarser oracle
+	public synchronized void setDistanceOracleK(int k) {
+		oracleK = Math.max(1, k);
+	}
+
+	// called when nodes or edges are added or removed
+	synchronized void topologyChanged() {
+		topologyChanged = true;
+		changeCount++;
+	}
+
+	// called when a node moves or an edge weight changes
+	synchronized void geometryChanged() {
+		geometryChanged = true;
+		changeCount++;
+	}
+
+	// Answer a number that changes whenever nodes or edges are added, removed or
+	// moved, or an edge weight or a node label changes; the graph was edited
+	// between two calls if they answer different numbers
+	public synchronized int changeCount() {
+		return changeCount;
+	}
+
+	// Answer the spatial index of the nodes and edges, building it on first use;
+	// from then on it is kept up to date as the graph changes
+	SpatialIndex spatialIndex() {
+		if (spatialIndex == null) {
+			spatialIndex = new SpatialIndex();
+			for (Node aNode : nodes)
+				spatialIndex.addNode(aNode);
+			for (Edge anEdge : edges)
+				spatialIndex.addEdge(anEdge);
+		}
+		return spatialIndex;
+	}
+
+	// called when aNode's label changes
+	void labelChanged(Node aNode, String oldLabel) {
+		labelIndex.relabel(aNode, oldLabel);
+		synchronized (this) {
+			changeCount++;
+		}
+	}
+
+	// called when aNode moves
+	void nodeMoved(Node aNode) {
+		if (spatialIndex != null)
+			spatialIndex.nodeMoved(aNode);
+		if (crossingIndex != null)
+			crossingIndex.nodeMoved(aNode);
+		geometryChanged();
+	}
+
 	// Add a node to the graph
-	public void addNode(Node aNode) {nodes.add(aNode);}
+	public void addNode(Node aNode) {
+		aNode.setIndex(nodes.size());
+		aNode.setId(nextNodeId++);
+		aNode.setGraph(this);
+		nodes.add(aNode);
+		if (spatialIndex != null)
+			spatialIndex.addNode(aNode);
+		labelIndex.add(aNode);
+		topologyChanged();
+	}
 
 	// Add an edge to the graph between two given nodes
 	public void addEdge(Node start, Node end) {
@@ -124,10 +312,25 @@ public class Graph {
 			// Now tell the nodes about the edge
 			e.getStartNode().addIncidentEdge(e);
 			e.getEndNode().addIncidentEdge(e);
+			e.setIndex(edges.size());
 			edges.add(e);
+			edgeIndex.put(e);
+			if (spatialIndex != null)
+				spatialIndex.addEdge(e);
+			if (crossingIndex != null)
+				crossingIndex.edgeAdded(e);
+			topologyChanged();
 		}
 	}
 
+	// Add many Edge objects at once (as addEdge(Edge) does for each)
+	public void addEdges(Collection<Edge> newEdges) {
+		edges.ensureCapacity(edges.size() + newEdges.size());
+		edgeIndex.ensureCapacity(edgeIndex.size() + newEdges.size());
+		for (Edge e : newEdges)
+			addEdge(e);
+	}
+
 	// Add an edge to the graph between two nodes with the given labels
 	public void addEdge(String startLabel, String endLabel) {
 		Node start, end;
@@ -147,53 +350,95 @@ public class Graph {
 		}
 		anEdge.getStartNode().deleteIncidentEdge(anEdge);
 		anEdge.getEndNode().deleteIncidentEdge(anEdge);
-		edges.remove(anEdge);
+		edgeIndex.remove(anEdge);
+		if (spatialIndex != null)
+			spatialIndex.removeEdge(anEdge);
+		if (crossingIndex != null)
+			crossingIndex.edgeRemoved(anEdge);
+		int index = anEdge.getIndex();
+		edges.remove(index);
+		renumberEdgesFrom(index);
+		anEdge.setIndex(-1);
+		topologyChanged();
 	}
 
 	// Remove a node from the receiver
 	public void deleteNode(Node aNode) {
 		// Remove the opposite node's incident edges
+		int firstRemovedEdge = edges.size();
 		for (Edge anEdge : aNode.incidentEdges()) {
 			anEdge.otherNode(aNode).deleteIncidentEdge(anEdge);
+			edgeIndex.remove(anEdge);
+			if (spatialIndex != null)
+				spatialIndex.removeEdge(anEdge);
+			if (crossingIndex != null)
+				crossingIndex.edgeRemoved(anEdge);
+			firstRemovedEdge = Math.min(firstRemovedEdge, anEdge.getIndex());
 			edges.remove(anEdge);
+			anEdge.setIndex(-1);
 		}
-		// Remove the node now
-		nodes.remove(aNode);
+		renumberEdgesFrom(firstRemovedEdge);
+
+		// Remove the node now and renumber the nodes that followed it
+		if (spatialIndex != null)
+			spatialIndex.removeNode(aNode);
+		labelIndex.remove(aNode);
+		int index = aNode.getIndex();
+		nodes.remove(index);
+		for (int i = index; i < nodes.size(); i++)
+			nodes.get(i).setIndex(i);
+		aNode.setIndex(-1);
+		aNode.setGraph(null);
+		topologyChanged();
+	}
+
+	private void renumberEdgesFrom(int start) {
+		for (int i = start; i < edges.size(); i++)
+			edges.get(i).setIndex(i);
 	}
 
 	// Return the node with the given label, null if there is none
 	public Node nodeNamed(String aLabel) {
-		for (int i = 0; i < nodes.size(); i++) {
-			Node aNode = nodes.get(i);
-			if (aNode.getLabel().equals(aLabel)){
-				return aNode;
-			}
-		}
-		// If we don't find one, return null
-		return null;
+		return labelIndex.first(aLabel);
+	}
+
+	// Return the nodes whose label starts with prefix, ordered by label
+	public ArrayList<Node> nodesWithLabelPrefix(String prefix) {
+		return labelIndex.withPrefix(prefix);
+	}
+
+	// Select the nodes whose label starts with prefix and nothing else;
+	// answer how many there are
+	public int selectNodesWithLabelPrefix(String prefix) {
+		clearSelections();
+		ArrayList<Node> found = nodesWithLabelPrefix(prefix);
+		for (Node aNode : found)
+			aNode.setSelected(true);
+		return found.size();
 	}
 
 	// Return the node that contains point p if one exists
+	// (the first such node in the node list, as found through the spatial index)
 	public Node nodeAt(Point p) {
-		for (int i = 0; i < nodes.size(); i++) {
-			Node aNode = nodes.get(i);
-			int distance = (p.x - aNode.getLocation().x) * (p.x - aNode.getLocation().x)
-					+ (p.y - aNode.getLocation().y) * (p.y - aNode.getLocation().y);
-			if (distance <= (Node.RADIUS * Node.RADIUS))
-				return aNode;
+		Node result = null;
+		for (Node aNode : spatialIndex().nodesNear(p, Node.RADIUS)) {
+			int distance = (p.x - aNode.getX()) * (p.x - aNode.getX())
+					+ (p.y - aNode.getY()) * (p.y - aNode.getY());
+			if (distance <= (Node.RADIUS * Node.RADIUS) && (result == null || aNode.getIndex() < result.getIndex()))
+				result = aNode;
 		}
-		return null;
+		return result;
 	}
 
 	// Return the node whose location is at the specified Point
 	public Node nodeWithLocation(Point p) {
-		for (int i = 0; i < nodes.size(); i++) {
-			Node aNode = nodes.get(i);
-			if (aNode.getLocation().x == p.x && aNode.getLocation().y == p.y){
-				return aNode;
+		Node result = null;
+		for (Node aNode : spatialIndex().nodesNear(p, 0)) {
+			if (result == null || aNode.getIndex() < result.getIndex()){
+				result = aNode;
 			}
 		}
-		return null;
+		return result;
 	}
 
 	// Answer an edge that is sufficiently close to a Point p
@@ -209,27 +454,27 @@ public class Graph {
 		 * 
 		 * Thanks to: Adrian Batos-Parac for this method
 		 */
-		for (int i = 0; i < edges.size(); i++) {
-			Edge anEdge = edges.get(i);
-			double distanceToStart = Graph.distanceBetween(p, anEdge.getStartNode().getLocation());
-			double distanceToEnd = Graph.distanceBetween(p, anEdge.getEndNode().getLocation());
+		Edge result = null;
+		for (Edge anEdge : spatialIndex().edgesNear(p)) {
+			if (result != null && anEdge.getIndex() > result.getIndex())
+				continue; // answer the first edge in the edge list, as a scan would
+			Node start = anEdge.getStartNode(), end = anEdge.getEndNode();
+			double distanceToStart = Graph.distanceBetween(p.x, p.y, start.getX(), start.getY());
+			double distanceToEnd = Graph.distanceBetween(p.x, p.y, end.getX(), end.getY());
 			double totalChange = (distanceToStart + distanceToEnd)
-					- (Graph.distanceBetween(anEdge.getEndNode().getLocation(), anEdge.getStartNode().getLocation()));
+					- (Graph.distanceBetween(end.getX(), end.getY(), start.getX(), start.getY()));
 
 			if (totalChange < 1)
-				return anEdge;
+				result = anEdge;
 		}
-		return null;
+		return result;
 	}
 
 	// Get the edge that connects two nodes, null otherwise
 	public Edge edgeBetween(Node n1, Node n2) {
-		for (Edge e : n1.incidentEdges()) {// find corresponding edge
-			if (e.connects(n1, n2)) {
-				return e;
-			}
-		}
-		return null;
+		if (n1.getGraph() != this || n2.getGraph() != this)
+			return null;
+		return edgeIndex.get(n1, n2);
 	}
 
 	// Get the edge go between two node partitions
@@ -296,16 +541,17 @@ public class Graph {
 		// otherwise mark as unselected
 
 		for (Node node : nodes) {
-			node.setSelected(boundingBox.contains(node.getLocation()));
+			node.setSelected(false);
+		}
+		for (Node node : spatialIndex().nodesIn(boundingBox)) {
+			node.setSelected(true);
 		}
 	}
 
 	public void addNodesInAreaToSelection(Rectangle boundingBox) {
 		// Mark any nodes that fall within the boundingBox as selected
-		for (Node node : nodes) {
-			if (boundingBox.contains(node.getLocation())) {
-				node.setSelected(true);
-			}
+		for (Node node : spatialIndex().nodesIn(boundingBox)) {
+			node.setSelected(true);
 		}
 	}
 
@@ -333,235 +579,217 @@ public class Graph {
 		for (Node aNode : nodes) {
 			int randomX = rand.nextInt(width);
 			int randomY = rand.nextInt(height);
-			Point newLocation = new Point(randomX, randomY);
 			if (GraphEditor.displayAnimation)
-				aNode.setDeltaForLocation(newLocation, GraphEditor.AnimationSteps);
+				aNode.setDeltaForLocation(new Point(randomX, randomY), GraphEditor.AnimationSteps);
 			else
-				aNode.setLocation(newLocation);
+				aNode.setLocation(randomX, randomY);
 		}
 
 	}
 
 	// ALGORITHMS
-	public int numberOfEdgeCrossings() {
+	public synchronized int numberOfEdgeCrossings() {
 		// count the number of edges in the graph that currently cross each other
-		int count = 0;
-
-		for (Edge anEdge : edges)
-			for (Edge anEdge2 : edges) {
-				if (anEdge != anEdge2) {
-					Point p = anEdge.intersects(anEdge2);
-					if (p != null) {
-						count++;
-					}
-				}
-			}
-		return count / 2;
+		// (the pairs for which Edge.intersects answers a point). They are counted
+		// once, then kept up to date as nodes move and edges come and go
+		if (crossingIndex == null)
+			crossingIndex = new CrossingIndex(snapshot(), spatialIndex());
+		return crossingIndex.count();
+	}
+
+	// Answer the edges that currently cross anEdge
+	public ArrayList<Edge> edgesCrossing(Edge anEdge) {
+		numberOfEdgeCrossings(); // make sure the crossings are being kept
+		return crossingIndex.crossingsOf(anEdge);
 	}
 	// PATH FINDING
 	// MINIMUM COST SPANNING TREE
 	public void findMinimumCostSpanningTree() {
 		// find, and select the edges that form a minimum cost spanning tree
-		// Create node partitions for Prim-Jarnik Algorithm
-		ArrayList<Node> processedNodes = new ArrayList<Node>();
-		ArrayList<Node> remainingNodes = copyOfNodes();
-		if (remainingNodes.size() <= 1)
+		// (a spanning forest if the graph is disconnected)
+		// using the Prim-Jarnik algorithm on the CSR snapshot with a heap of
+		// the cheapest known connection of each node to the tree
+		GraphSnapshot g = snapshot();
+		int n = g.nodeCount();
+		if (n <= 1)
 			return; // no tree possible
 
-		// partition the nodes into a partition of 1 node and the remaining
-		// nodes
-		Node startNode = remainingNodes.remove(0);
-		startNode.setSelected(true);
-		processedNodes.add(startNode);
-
 		// clear all selected items in the graph
 		clearSelections();
 
-		findMinimumCostSpanningTree(processedNodes, remainingNodes);
+		boolean[] inTree = new boolean[n];
+		int[] connectingEdge = new int[n];
+		IndexedMinHeap crossEdges = new IndexedMinHeap(n);
+
+		for (int root = 0; root < n; root++) {
+			if (inTree[root])
+				continue;
+			connectingEdge[root] = -1;
+			crossEdges.offer(root, 0.0);
+			while (!crossEdges.isEmpty()) {
+				int v = crossEdges.poll();
+				inTree[v] = true;
+				if (connectingEdge[v] >= 0)
+					g.edges[connectingEdge[v]].setSelected(true);
+
+				for (int arc = g.firstArc[v]; arc < g.firstArc[v + 1]; arc++) {
+					int w = g.arcHead[arc];
+					if (!inTree[w] && crossEdges.offer(w, g.arcWeight[arc]))
+						connectingEdge[w] = g.arcEdge[arc];
+				}
+			}
+		}
 	}
 
-	public void findMinimumCostSpanningTree(ArrayList<Node> processedNodes, ArrayList<Node> remainingNodes) {
-		System.err.println("NOT IMPLEMENTED");
-		/*// Recursive implementation of Prim-Jarnik Algorithm
-		// Find a minimum cost spanning tree recursively by finding the lowest
-		// cost edge
-		// that connects the partial tree represened by the processed nodes to
-		// one
-		// of the remaining nodes
-
-		// Basis Case
-		if (remainingNodes.isEmpty())
-			return;
-
-		// Recursive Case
-		ArrayList<Edge> crossEdges = edgesBetween(processedNodes, remainingNodes);
-
-		if (crossEdges.size() < 1)
-			return; // graph is disconnected
-
-		//Edge minimumCostEdge = Edge.removeMinimumWeightEdge(crossEdges); // good
-																			// place
-																			// for
-																			// priority
-																			// queue
-		minimumCostEdge.setSelected(true);
-
-		// Move the connected node to the processed partition
-		Node startNode = minimumCostEdge.getStartNode();
-		Node endNode = minimumCostEdge.getEndNode();
-		if (remainingNodes.contains(startNode)) {
-			remainingNodes.remove(startNode);
-			processedNodes.add(startNode);
-
-		} else if (remainingNodes.contains(endNode)) {
-			remainingNodes.remove(endNode);
-			processedNodes.add(endNode);
-		}
+	// CONNECTIVITY AND TRAVERSAL
+	// The traversal methods that take a SearchContext only read the graph;
+	// the ones without one run on the selected node and show the result
+
+	// answer whether there is a path between source and target
+	public boolean hasPathBetween(Node source, Node target, SearchContext context) {
+		GraphSnapshot g = snapshot();
+		GraphSearch.depthFirstSearch(g, indexOf(g, source), indexOf(g, target), context);
+		return context.isVisited(target.getIndex());
+	}
 
-		findMinimumCostSpanningTree(processedNodes, remainingNodes); // recurse
-	*/
+	public TraversalResult depthFirstSearch(Node source, SearchContext context) {
+		GraphSnapshot g = snapshot();
+		return GraphSearch.depthFirstSearch(g, indexOf(g, source), -1, context);
 	}
 
-	// CONNECTIVITY AND TRAVERSAL
-	private boolean hasPathFrom(Node source, Node target) {
-		// WARNING: don't call this method directly, call via the hasSTPath()
-		// method
-		// Answer true if there is a path from the source node to the target
-		// node. Answer false if no path exists (source and target are
-		// disconnected)
-
-		// Basis case
-		if (source == target)
-			return true; // we have reached the target
-		// Recursive case
-		// mark the node as visited
-		source.setVisited(true);
-		source.setLabel(Node.counter++);
-
-		// update its neighbours distances
-		for (Node neighbour : source.neighbours()) {
-			if (neighbour.getVisited() == false) {
-				if (hasPathFrom(neighbour, target))
-					return true;
-			}
-		}
-		return false;
+	public TraversalResult breadthFirstSearch(Node source, SearchContext context) {
+		GraphSnapshot g = snapshot();
+		return GraphSearch.breadthFirstSearch(g, indexOf(g, source), context);
 	}
 
 	public boolean hasSTPath() {
 		// answer whether the two selected nodes in the graph are connected
+		// and label the nodes searched in the order they were seen
 		ArrayList<Node> selectedNodes = selectedNodes();
 		if (selectedNodes.size() == 2) {
 			Node source = selectedNodes.get(0);
 			Node target = selectedNodes.get(1);
 
+			GraphSnapshot g = snapshot();
+			SearchContext context = searchContext();
+			TraversalResult searched = GraphSearch.depthFirstSearch(g, indexOf(g, source), indexOf(g, target),
+					context);
 			for (Node aNode : getNodes()) {
-				aNode.setVisited(false);
 				aNode.setLabel("");
 			}
-			Node.counter = 1;
-			return hasPathFrom(source, target);
+			int[] order = searched.getOrder();
+			for (int i = 0; i < order.length; i++)
+				g.nodes[order[i]].setLabel(i + 1);
+			return context.isVisited(target.getIndex());
 		}
 		return false;
 	}
 
-	public void depthFirstSearch(Node source, int level_counter) {
-		// Perform a depth first search from the source node
-		// label the nodes in order the are seen
-		// label with recursion level and sibling order
-		// mark the node as visited
-
-		source.setVisited(true);
-		source.setLabel("" + (Node.counter++) + "[" + level_counter + "]");
-		// update its neighbours distances
-		for (Node neighbour : source.neighbours()) {
-			if (neighbour.getVisited() == false) {
-				depthFirstSearch(neighbour, level_counter + 1);
-				edgeBetween(source, neighbour).setSelected(true); // select the
-																	// forward
-																	// edges
-			} else
-				edgeBetween(source, neighbour).setMarked(true); // mark the back
-																// edges
-		}
-	}
-
 	public void depthFirstSearch() {
 		// search from a selected node
-		ArrayList<Node> selectedNodes = selectedNodes();
-		if (nodes.size() < 1)
-			return;
-		Node source = null;
-		if (selectedNodes.size() >= 1)
-			source = selectedNodes.get(0);
-		else
-			source = nodes.get(0);
-
-		for (Node aNode : getNodes()) {
-			aNode.setVisited(false);
-			aNode.setLabel("");
-		}
-		clearEdgeSelections();
+		Node source = traversalSource();
+		if (source != null)
+			showTraversal(depthFirstSearch(source, searchContext()));
+	}
 
-		Node.counter = 1;
-		depthFirstSearch(source, 0);
+	public void breadthFirstSearch() {
+		// search from a selected node
+		Node source = traversalSource();
+		if (source != null)
+			showTraversal(breadthFirstSearch(source, searchContext()));
 	}
 
-	public void breadthFirstSearch(ArrayList<Node> nodesToSearch, int level_counter) {
-		// Perform a breadth first search from the source node
-		// label the nodes in order the are seen
-		// label with recursion level and sibiling order
+	// Answer every node within maxDistance of source, with its distance
+	public RangeResult nodesWithinDistance(Node source, double maxDistance) {
+		GraphSnapshot g = snapshot();
+		return GraphSearch.range(g, indexOf(g, source), maxDistance, searchContext());
+	}
 
-		// Basis case
-		if (nodesToSearch.size() < 1)
-			return;
+	// As above for many sources at once, computed in parallel
+	public RangeResult[] nodesWithinDistance(java.util.List<Node> sources, double maxDistance) {
+		GraphSnapshot g = snapshot();
+		int[] sourceIds = new int[sources.size()];
+		for (int i = 0; i < sourceIds.length; i++)
+			sourceIds[i] = indexOf(g, sources.get(i));
+		return GraphSearch.ranges(g, sourceIds, maxDistance, searchContexts);
+	}
 
-		// Recursion
-		for (Node aNode : nodesToSearch) {
-			aNode.setLabel("" + (Node.counter++) + "[" + level_counter + "]");
-		}
+	// Select the nodes within maxDistance of the selected nodes, and the edges
+	// between them, in the editor
+	public void showNodesWithinDistance(double maxDistance) {
+		ArrayList<Node> centers = selectedNodes();
+		if (centers.isEmpty() && traversalSource() != null)
+			centers.add(traversalSource());
+		RangeResult[] ranges = nodesWithinDistance(centers, maxDistance);
+		clearSelections();
+		for (RangeResult aRange : ranges)
+			showRange(aRange);
+		for (Node center : centers)
+			center.setMarked(true);
+	}
 
-		ArrayList<Node> newNodesToSearch = new ArrayList<Node>(); // get nodes
-																	// for next
-																	// level to
-																	// search
-		for (Node aNode : nodesToSearch) {
-			for (Node neighbour : aNode.neighbours())
-				if (neighbour.getVisited() == false) {
-					newNodesToSearch.add(neighbour);
-					neighbour.setVisited(true);
-					edgeBetween(aNode, neighbour).setSelected(true);
-				} else
-					edgeBetween(aNode, neighbour).setMarked(true);
+	// Show a range in the editor: select the nodes in range and every edge
+	// between two of them, and give the nodes their distance from the source
+	public void showRange(RangeResult aRange) {
+		GraphSnapshot g = objectsOf(aRange.getGraph());
+		int[] nodeIds = aRange.getNodeIds();
+		double[] distances = aRange.getDistances();
+		for (int i = 0; i < nodeIds.length; i++) {
+			Node aNode = g.node(nodeIds[i]);
+			if (!aNode.isSelected() || aNode.getDistance() > distances[i])
+				aNode.setDistance(distances[i]);
+			aNode.setSelected(true);
 		}
-
-		breadthFirstSearch(newNodesToSearch, level_counter + 1);
+		for (int i = 0; i < nodeIds.length; i++)
+			for (int arc = g.firstArc(nodeIds[i]); arc < g.firstArc(nodeIds[i] + 1); arc++)
+				if (g.node(g.arcHead(arc)).isSelected())
+					g.edge(g.arcEdge(arc)).setSelected(true);
 	}
 
-	public void breadthFirstSearch() {
-		// search from a selected node
+	// the first selected node, or the first node if none is selected
+	private Node traversalSource() {
 		ArrayList<Node> selectedNodes = selectedNodes();
 		if (nodes.size() < 1)
-			return;
-		Node source = null;
+			return null;
 		if (selectedNodes.size() >= 1)
-			source = selectedNodes.get(0);
-		else
-			source = nodes.get(0);
+			return selectedNodes.get(0);
+		return nodes.get(0);
+	}
 
-		// reset node labels
+	// Show a traversal in the editor: label the nodes with the order they were
+	// seen and their level, select the tree edges and mark the other edges seen
+	public void showTraversal(TraversalResult searched) {
+		GraphSnapshot g = objectsOf(searched.getGraph());
 		for (Node aNode : getNodes()) {
-			aNode.setVisited(false);
 			aNode.setLabel("");
 		}
-
 		clearEdgeSelections();
 
-		Node.counter = 1; // reset global counter
-		ArrayList<Node> nodesToSearch = new ArrayList<Node>();
-		source.setVisited(true);
-		nodesToSearch.add(source);
-		breadthFirstSearch(nodesToSearch, 0);
+		int[] order = searched.getOrder();
+		int[] level = searched.getLevels();
+		for (int i = 0; i < order.length; i++)
+			g.node(order[i]).setLabel("" + (i + 1) + "[" + level[i] + "]");
+		for (int e : searched.getTreeEdges())
+			g.edge(e).setSelected(true); // select the forward edges
+		for (int e : searched.getNonTreeEdges())
+			g.edge(e).setMarked(true); // mark the back edges
+	}
+
+	// The snapshot a result to be shown was computed on. Results computed on an
+	// OffHeapGraphStore have no Node or Edge objects and are rejected; show them
+	// on a graph materialized from the store instead
+	private static GraphSnapshot objectsOf(ReadOnlyGraph g) {
+		if (!(g instanceof GraphSnapshot))
+			throw new IllegalArgumentException("Result has no Node or Edge objects to show, it was computed on " + g);
+		return (GraphSnapshot) g;
+	}
+
+	// the index of aNode in snapshot g
+	private static int indexOf(GraphSnapshot g, Node aNode) {
+		int v = aNode.getIndex();
+		if (v < 0 || v >= g.nodeCount() || g.nodes[v] != aNode)
+			throw new IllegalArgumentException("Node is not part of this graph: " + aNode);
+		return v;
 	}
 
 	public void maxFlow() {
@@ -729,6 +957,7 @@ public class Graph {
 
 		// write class start tag
 		outputFile.println(baseIndent + startTag);
+		outputFile.println(indent + XMLEdgeWeightsTag);
 
 		if (backgroundImageFileName != null && !backgroundImageFileName.isEmpty()) {
 			// write background image file information with graph
@@ -765,7 +994,12 @@ public class Graph {
 		// <graph>
 		// ...
 		// </graph>
+		// Nodes are filed by location as they are read so that each edge finds its
+		// end nodes with one lookup; the edges are added together at the end
 		Graph parsedModel = new Graph();
+		HashMap<Long, Node> nodesByLocation = new HashMap<Long, Node>();
+		ArrayList<Edge> parsedEdges = new ArrayList<Edge>();
+		boolean hasEdgeWeights = false; // see XMLEdgeWeightsTag
 
 		String inputLine; // current input line
 		String dataString = null;
@@ -783,6 +1017,8 @@ public class Graph {
 				dataString = inputLine;
 				if (dataString.length() == 0) {
 					// do nothing, but allow for blank lines;
+				} else if (dataString.startsWith(XMLEdgeWeightsTag)) {
+					hasEdgeWeights = true;
 				} else if (dataString.startsWith(Graph.XMLBackgroundImageStartTag)) {
 					// parse background image file data
 					// DO NOTHING WITH THIS DATA FOR NOW
@@ -792,25 +1028,22 @@ public class Graph {
 					if (node != null) {
 						// System.out.println("Node");
 						parsedModel.addNode(node);
+						// edges attach to the first node at a location, as nodeWithLocation answers
+						Long key = locationKey(node.getX(), node.getY());
+						if (!nodesByLocation.containsKey(key))
+							nodesByLocation.put(key, node);
 					}
 				} else if (dataString.startsWith(Edge.startTag)) {
 					// parse a staff
-					Edge edgeModel = Edge.parseFromFile(Edge.startTag, inputFile);
+					// The edge's end nodes are the graph's nodes at the
+					// edge's end locations, only the locations are in the file
+					Edge edgeModel = Edge.parseFromFile(Edge.startTag, inputFile, nodesByLocation);
 					if (edgeModel != null) {
 						// System.out.println("Graph:: Edge parsed");
-						// Replace the parsed temporary nodes with nodes from
-						// the graph at the
-						// same location.
-						// This is because the nodes of the graph were not known
-						// when the edge was
-						// parsed in from the xml file, only the locations were
-						// known
-
-						Node graphStartNode = parsedModel.nodeWithLocation(edgeModel.getStartNode().getLocation());
-						Node graphEndNode = parsedModel.nodeWithLocation(edgeModel.getEndNode().getLocation());
-						edgeModel.setStartNode(graphStartNode);
-						edgeModel.setEndNode(graphEndNode);
-						parsedModel.addEdge(edgeModel);
+						if (edgeModel.getStartNode() == null || edgeModel.getEndNode() == null)
+							System.out.println("ERROR: Edge end is not at a node location, edge ignored");
+						else
+							parsedEdges.add(edgeModel);
 					}
 				}
 				// see if the dataString is of the form "<tag> data </tag>"
@@ -832,6 +1065,11 @@ public class Graph {
 			System.out.println("VERSION PARSE Error: Cannot read from file.");
 			return null;
 		}
+		if (!hasEdgeWeights)
+			for (Edge anEdge : parsedEdges)
+				if (anEdge.hasAssignedWeight())
+					anEdge.clearWeight();
+		parsedModel.addEdges(parsedEdges);
 		return parsedModel;
 	}
 
@@ -852,376 +1090,220 @@ public class Graph {
 	}
 
 	public ArrayList<Edge> findPathBetween(Node source, Node target, PathFindingMethod theMethod) {
-		// initialize the graph for path finding
-		// Do any common initialization needed for all the path finding methods
-		for (Node aNode : getNodes()) {
-			aNode.setDistance(infinity()); // infinity
-			aNode.setVisited(false);
-			aNode.setPreviousEdge(null);
+		// find the path using the appropriate method, then show it in the editor
+		SearchContext context = searchContext();
+		PathResult thePath = findPath(source, target, theMethod, context);
+		showPath(thePath, context);
+
+		if (!thePath.isFound()) {
+			if (theMethod != PathFindingMethod.GreedyBestNeighbour) {
+				System.out.println("Path Length [" + Graph.nameOfMethod(theMethod) + "]: no path");
+				return null;
+			}
+			// report at least the partial path
+			System.out.println("ERROR: Path Incomplete (we must have hit a dead end)");
 		}
-		source.setDistance(0.0);
-		clearEdgeSelections(); // clear any currently selected and marked edges
-		// find the path using the appropriate method
+		int pathLength = 0;
+		for (Edge e : thePath.getEdges())
+			pathLength += e.getWeight();
+		System.out.println("Path Length [" + Graph.nameOfMethod(theMethod) + "]: " + pathLength + " ("
+				+ thePath.getSettledCount() + " nodes settled)");
+		return thePath.getEdges();
+	}
 
-		ArrayList<Edge> thePath = null;
+	// Estimate the shortest path distance between source and target without
+	// searching the graph. The estimate is never below the distance findPathBetween
+	// reports and at most distanceOracle().stretch() times it
+	public double estimateDistance(Node source, Node target) {
+		DistanceOracle someOracle = distanceOracle();
+		GraphSnapshot g = someOracle.getGraph();
+		return someOracle.estimateDistance(indexOf(g, source), indexOf(g, target));
+	}
 
+	// Find a path from source to target using the calling thread's search context
+	public PathResult findPath(Node source, Node target, PathFindingMethod theMethod) {
+		return findPath(source, target, theMethod, searchContext());
+	}
+
+	// Find a path from source to target with the given method.
+	// All search state is kept in context, the graph is not modified, so
+	// queries with different contexts can run on this graph at the same time.
+	public PathResult findPath(Node source, Node target, PathFindingMethod theMethod, SearchContext context) {
 		if (theMethod == PathFindingMethod.Dijkstra)
-			thePath = findPathUsingDijstra(source, target);
+			return findPathUsingDijstra(source, target, context);
 		else if (theMethod == PathFindingMethod.AStarLowerBound)
-			thePath = findPathUsingAStarLowerBound(source, target);
+			return findPathUsingAStarLowerBound(source, target, context);
 		else if (theMethod == PathFindingMethod.AStarManhattan)
-			thePath = findPathUsingAStarManhattan(source, target);
+			return findPathUsingAStarManhattan(source, target, context);
 		else if (theMethod == PathFindingMethod.AStarZeroCostHeuristic)
-			thePath = findPathUsingAStarZeroCostHeuristic(source, target);
+			return findPathUsingAStarZeroCostHeuristic(source, target, context);
 		else if (theMethod == PathFindingMethod.AStarBestFirstGreedy)
-			thePath = findPathUsingAStarBestFirstGreedy(source, target);
+			return findPathUsingAStarBestFirstGreedy(source, target, context);
 		else if (theMethod == PathFindingMethod.GreedyBestNeighbour)
-			thePath = findPathUsingGreedyHeuristic(source, target);
+			return findPathUsingGreedyHeuristic(source, target, context);
+		else if (theMethod == PathFindingMethod.BidirectionalDijkstra)
+			return findPathUsingBidirectionalDijkstra(source, target, context);
+		else if (theMethod == PathFindingMethod.BidirectionalAStar)
+			return findPathUsingBidirectionalAStar(source, target, context);
+		else if (theMethod == PathFindingMethod.AStarLandmarks)
+			return findPathUsingAStarLandmarks(source, target, context);
+		else if (theMethod == PathFindingMethod.ContractionHierarchies)
+			return findPathUsingContractionHierarchies(source, target, context);
+		else if (theMethod == PathFindingMethod.ArcFlags)
+			return findPathUsingArcFlags(source, target, context);
+		else if (theMethod == PathFindingMethod.YenKShortestPaths)
+			return findPathUsingKShortestPaths(source, target, context);
+		return null;
+	}
 
-		// indicate the path by selecting the edges in the graph that form the
-		// path
+	// Answer the paths for a batch of queries, computed in parallel with one
+	// search context per worker thread. Results are in the order of the queries
+	// and nothing in the editor (selection, marks, distances) is changed
+	public PathResult[] findPaths(java.util.List<PathQuery> queries) {
+		return findPaths(queries, 0);
+	}
 
-		int pathLength = 0;
-		if (thePath != null) {
-			for (Edge e : thePath) {
-				e.setSelected(true);
-				e.getStartNode().setSelected(true);
-				e.getEndNode().setSelected(true);
-				pathLength += e.getWeight();
-			}
-		}
-		System.out.println("Path Length [" + Graph.nameOfMethod(theMethod) + "]: " + pathLength);
-		return thePath;
-	}
-
-	public ArrayList<Edge> findPathUsingGreedyHeuristic(Node source, Node target) {
-		// This
-		// For illustration this method currently finds a path using an "As the
-		// crow flies" greedy
-		// Heuristic.
-		// It simply chooses the next unvisited neighbour which is "as the crow
-		// flies" closest to the target
-		// Because of this simple greedy behaviour without backtracking, it can
-		// dead end and get stuck
-		// with nowhere to go
-
-		// Run a greedy method to find the locally best node to visit next
-		source.setPreviousEdge(null); // there is not previous node to visit
-
-		Node currentNode = source;
-		currentNode.setVisited(true);
-
-		while (currentNode != target) {
-			ArrayList<Node> neighbours = currentNode.neighbours();
-			Node nextCandidate = null;
-			double distance = infinity();
-			for (Node n : neighbours) {
-				// find neighbour which is unvisited and "as the crow flies"
-				// closest to target
-				n.setMarked(true); // mark node as having been examined by
-									// algorithm
-				if ((n.getVisited() == false) && Graph.distanceBetween(n, target) < distance) {
-					distance = Graph.distanceBetween(n, target);
-					nextCandidate = n;
-				}
-			}
-			if (nextCandidate == null) {
-				System.out.println("ERROR: Path Incomplete (we must have hit a dead end)");
-				break; // break out of loop and report at least the partial path
-			}
-			Edge edgeToPrevious = edgeBetween(currentNode, nextCandidate);
-			edgeToPrevious.setSelected(true);
-			nextCandidate.setPreviousEdge(edgeToPrevious);
-			nextCandidate.setVisited(true);
-			currentNode = nextCandidate;
-		}
-		// Retrace the path using the previous edges recorded and return it
-		ArrayList<Edge> thePath = new ArrayList<Edge>();
-		Node someNode = currentNode;
-		while (someNode != source) {
-			Edge pathEdge = someNode.getPreviousEdge();
-			thePath.add(0, pathEdge); // prepend the edge to the path
-			someNode = pathEdge.otherNode(someNode);
-		}
-		return thePath;
+	// As above, on the given number of threads (0 for one per processor)
+	public PathResult[] findPaths(java.util.List<PathQuery> queries, int parallelism) {
+		return new PathBatch(this, queries, searchContexts).run(parallelism);
 	}
 
-	// Mine
-	public Node smallestDistance(ArrayList<Node> a) {
-		if (a == null) {
-			return null;
-		}
-		Node smallestNode = null;
+	// Answer the shortest path distances from each source to each target as
+	// table[source][target], Graph.infinity() where there is no path
+	public double[][] distanceTable(java.util.List<Node> sources, java.util.List<Node> targets) {
+		return distanceTable(sources, targets, DistanceTable.Mode.Sequential);
+	}
 
-		for (Node n : a) {
-			if (smallestNode == null || n.getDistance() < smallestNode.getDistance()) {
-				smallestNode = n;
-			}
-		}
-		return smallestNode;
-	}
-
-	public ArrayList<Edge> findPathUsingDijstra(Node source, Node target) {
-		ArrayList<Node> marked = new ArrayList<Node>();
-
-		// initilize things
-		System.out.println("Start Dijstra");
-		source.setPreviousEdge(null); // there is not previous node to visit
-		Node currentNode = source;
-
-		while (currentNode != target) {
-			currentNode.setVisited(true);
-			for (Node n : currentNode.neighbours()) {
-				if (n.getVisited() == false) {
-					n.setMarked(true);
-					marked.add(n);
-
-					Edge connectingEdge = edgeBetween(currentNode, n);// find
-																		// corresponding
-																		// edge
-					int edgeLen = connectingEdge.getWeight();
-					// set distance if it is greater then where we have come
-					// reset
-					if (n.getDistance() > currentNode.getDistance() + edgeLen) {
-						n.setDistance(currentNode.getDistance() + edgeLen);
-						n.setPreviousEdge(connectingEdge);
-					}
-				}
-			}
-			marked.remove(currentNode);
-			currentNode = smallestDistance(marked);
-			if (currentNode == null) {
-				return null;
-			}
-		}
+	// As above, computed one source at a time, with the sources in parallel, or
+	// with contraction hierarchy buckets (best for large tables)
+	public double[][] distanceTable(java.util.List<Node> sources, java.util.List<Node> targets,
+			DistanceTable.Mode mode) {
+		GraphSnapshot g = mode == DistanceTable.Mode.Buckets ? contractionHierarchy().getGraph() : snapshot();
+		int[] sourceIds = new int[sources.size()];
+		for (int i = 0; i < sourceIds.length; i++)
+			sourceIds[i] = indexOf(g, sources.get(i));
+		int[] targetIds = new int[targets.size()];
+		for (int j = 0; j < targetIds.length; j++)
+			targetIds[j] = indexOf(g, targets.get(j));
+		return DistanceTable.compute(this, sourceIds, targetIds, mode, searchContexts);
+	}
 
-		// Retrace the path using the previous edges recorded and return it
-		ArrayList<Edge> thePath = new ArrayList<Edge>();
-		Node someNode = currentNode;
-		while (someNode != source) {
-			Edge pathEdge = someNode.getPreviousEdge();
-			pathEdge.setSelected(true);
-			thePath.add(0, pathEdge); // prepend the edge to the path
-			someNode = pathEdge.otherNode(someNode);
-		}
-		return thePath;
+	// Answer up to k shortest loopless paths from source to target, lightest first
+	public ArrayList<PathResult> findKShortestPaths(Node source, Node target, int k) {
+		return kShortestPaths(source, target).next(k);
 	}
 
-	public Node smallestDistanceAStar(ArrayList<Node> a, Node target) {
-		if (a == null) {
-			return null;
-		}
-		Node smallestNode = null;
+	// Answer a generator of the loopless paths from source to target in order
+	// of weight; each call of next() computes one more path
+	public KShortestPaths kShortestPaths(Node source, Node target) {
+		GraphSnapshot g = snapshot();
+		return new KShortestPaths(g, indexOf(g, source), indexOf(g, target), searchContexts, PathBatch.pool(0));
+	}
 
-		for (Node n : a) {
-			if (smallestNode == null || n.getDistance() + distanceBetween(n, target) < smallestNode.getDistance()
-					+ distanceBetween(smallestNode, target)) {
-				smallestNode = n;
-			}
+	// Select just the edges and nodes of a path in the editor
+	public void selectPath(PathResult thePath) {
+		GraphSnapshot g = objectsOf(thePath.getGraph());
+		clearSelections();
+		for (int e : thePath.getEdgeIds()) {
+			Edge pathEdge = g.edge(e);
+			pathEdge.setSelected(true);
+			pathEdge.getStartNode().setSelected(true);
+			pathEdge.getEndNode().setSelected(true);
 		}
+		if (thePath.getEdgeIds().length == 0)
+			g.node(thePath.getSource()).setSelected(true);
+	}
 
-		return smallestNode;
-	}
-
-	public ArrayList<Edge> findPathUsingAStarLowerBound(Node source, Node target) {
-		ArrayList<Node> marked = new ArrayList<Node>();
-		// initilize things
-		System.out.println("Start Crow Flies");
-		source.setPreviousEdge(null); // there is not previous node to visit
-		Node currentNode = source;
-
-		while (currentNode != target) {
-			currentNode.setVisited(true);
-			for (Node n : currentNode.neighbours()) {
-				if (n.getVisited() == false) {
-					n.setMarked(true);
-					marked.add(n);
-
-					Edge connectingEdge = edgeBetween(currentNode, n);// find
-																		// corresponding
-																		// edge
-					int edgeLen = connectingEdge.getWeight();
-					// set distance if it is greater then where we have come
-					// reset
-					if (n.getDistance() > currentNode.getDistance() + edgeLen) {
-						n.setDistance(currentNode.getDistance() + edgeLen);
-						n.setPreviousEdge(connectingEdge);
-					}
-				}
-			}
-			marked.remove(currentNode);
-			currentNode = smallestDistanceAStar(marked, target);
-			if (currentNode == null) {
-				return null;
-			}
+	// Show a path in the editor: select its edges and nodes, mark the nodes the
+	// search examined and label them with their distance from the source
+	public void showPath(PathResult thePath, SearchContext context) {
+		GraphSnapshot g = objectsOf(thePath.getGraph());
+		SearchContext backward = null; // the target side of bidirectional searches
+		if (thePath.getMethod() == PathFindingMethod.BidirectionalDijkstra
+				|| thePath.getMethod() == PathFindingMethod.BidirectionalAStar
+				|| thePath.getMethod() == PathFindingMethod.ContractionHierarchies)
+			backward = context.reverse();
+
+		clearEdgeSelections(); // clear any currently selected and marked edges
+		for (int v = 0; v < g.nodeCount(); v++) {
+			Node aNode = g.node(v);
+			aNode.setDistance(context.distanceTo(v));
+			boolean examined = context.isReached(v) || (backward != null && backward.isReached(v));
+			if (examined && v != thePath.getSource())
+				aNode.setMarked(true); // examined by the algorithm
 		}
-		// Retrace the path using the previous edges recorded and return it
-		ArrayList<Edge> thePath = new ArrayList<Edge>();
-		Node someNode = currentNode;
-		while (someNode != source) {
-			Edge pathEdge = someNode.getPreviousEdge();
+		for (int e : thePath.getEdgeIds()) {
+			Edge pathEdge = g.edge(e);
 			pathEdge.setSelected(true);
-			thePath.add(0, pathEdge); // prepend the edge to the path
-			someNode = pathEdge.otherNode(someNode);
+			pathEdge.getStartNode().setSelected(true);
+			pathEdge.getEndNode().setSelected(true);
 		}
-		return thePath;
 	}
 
-	public Node smallestDistanceManhattan(ArrayList<Node> a, Node target) {
-		if (a == null) {
-			return null;
-		}
-		Node smallestNode = null;
+	public PathResult findPathUsingGreedyHeuristic(Node source, Node target, SearchContext context) {
+		GraphSnapshot g = snapshot();
+		return GraphSearch.greedyBestNeighbour(g, indexOf(g, source), indexOf(g, target), context);
+	}
 
-		int smallX = 0;
-		int smallY = 0;
+	public PathResult findPathUsingDijstra(Node source, Node target, SearchContext context) {
+		return findPathUsingFrontier(source, target, PathFindingMethod.Dijkstra, context);
+	}
 
-		for (Node n : a) {
-			if (smallestNode == null || n.getDistance() + Math.abs(n.getLocation().x - target.getLocation().x)
-					+ Math.abs(n.getLocation().y - target.getLocation().y) < smallestNode.getDistance() + smallX
-							+ smallY) {
+	public PathResult findPathUsingAStarLowerBound(Node source, Node target, SearchContext context) {
+		return findPathUsingFrontier(source, target, PathFindingMethod.AStarLowerBound, context);
+	}
 
-				smallestNode = n;
-				smallX = Math.abs(smallestNode.getLocation().x - target.getLocation().x);
-				smallY = Math.abs(smallestNode.getLocation().y - target.getLocation().y);
-			}
-		}
-		return smallestNode;
-	}
-
-	public ArrayList<Edge> findPathUsingAStarManhattan(Node source, Node target) {
-		ArrayList<Node> marked = new ArrayList<Node>();
-
-		// initilize things
-		System.out.println("Start Manhattan");
-		source.setPreviousEdge(null); // there is not previous node to visit
-		Node currentNode = source;
-
-		while (currentNode != target) {
-			currentNode.setVisited(true);
-			for (Node n : currentNode.neighbours()) {
-				if (n.getVisited() == false) {
-					n.setMarked(true);
-					marked.add(n);
-
-					Edge connectingEdge = edgeBetween(currentNode, n);// find
-																		// corresponding
-																		// edge
-					int edgeLen = connectingEdge.getWeight();
-					// set distance if it is greater then where we have come
-					// reset
-					if (n.getDistance() > currentNode.getDistance() + edgeLen) {
-						n.setDistance(currentNode.getDistance() + edgeLen);
-						n.setPreviousEdge(connectingEdge);
-					}
-				}
-			}
-			marked.remove(currentNode);
-			currentNode = smallestDistanceManhattan(marked, target);
-			if (currentNode == null) {
-				return null;
-			}
-		}
-		// Retrace the path using the previous edges recorded and return it
-		ArrayList<Edge> thePath = new ArrayList<Edge>();
-		Node someNode = currentNode;
-		while (someNode != source) {
-			Edge pathEdge = someNode.getPreviousEdge();
-			pathEdge.setSelected(true);
-			thePath.add(0, pathEdge); // prepend the edge to the path
-			someNode = pathEdge.otherNode(someNode);
-		}
-		return thePath;
-	}
-
-	public ArrayList<Edge> findPathUsingAStarZeroCostHeuristic(Node source, Node target) {
-		ArrayList<Node> marked = new ArrayList<Node>();
-
-		// initilize things
-		System.out.println("Start ZeroCostHeuristic");
-		source.setPreviousEdge(null); // there is not previous node to visit
-		Node currentNode = source;
-
-		while (currentNode != target) {
-			currentNode.setVisited(true);
-			for (Node n : currentNode.neighbours()) {
-				if (n.getVisited() == false) {
-					n.setMarked(true);
-					marked.add(n);
-
-					Edge connectingEdge = edgeBetween(currentNode, n);// find
-																		// corresponding
-																		// edge
-					int edgeLen = connectingEdge.getWeight();
-					// set distance if it is greater then where we have come
-					// reset
-					if (n.getDistance() > currentNode.getDistance() + edgeLen) {
-						n.setDistance(currentNode.getDistance() + edgeLen);
-						n.setPreviousEdge(connectingEdge);
-					}
-				}
-			}
-			marked.remove(currentNode);
-			currentNode = smallestDistance(marked);
-			if (currentNode == null) {
-				return null;
-			}
-		}
-		// Retrace the path using the previous edges recorded and return it
-		ArrayList<Edge> thePath = new ArrayList<Edge>();
-		Node someNode = currentNode;
-		while (someNode != source) {
-			Edge pathEdge = someNode.getPreviousEdge();
-			pathEdge.setSelected(true);
-			thePath.add(0, pathEdge); // prepend the edge to the path
-			someNode = pathEdge.otherNode(someNode);
-		}
-		return thePath;
-	}
-
-	public ArrayList<Edge> findPathUsingAStarBestFirstGreedy(Node source, Node target) {
-		ArrayList<Node> marked = new ArrayList<Node>();
-
-		// initilize things
-		System.out.println("Start greedy");
-		source.setPreviousEdge(null); // there is not previous node to visit
-		Node currentNode = source;
-
-		while (currentNode != target) {
-			currentNode.setVisited(true);
-			for (Node n : currentNode.neighbours()) {
-				if (n.getVisited() == false) {
-					n.setMarked(true);
-					marked.add(n);
-
-					Edge connectingEdge = edgeBetween(currentNode, n);// find
-																		// corresponding
-																		// edge
-					int edgeLen = connectingEdge.getWeight();
-					// set distance if it is greater then where we have come
-					// reset
-					if (n.getDistance() > distanceBetween(n, target)) {
-						n.setDistance(distanceBetween(n, target));
-						n.setPreviousEdge(connectingEdge);
-					}
-				}
-			}
-			marked.remove(currentNode);
-			currentNode = smallestDistance(marked);
-			if (currentNode == null) {
-				return null;
-			}
-		}
-		// Retrace the path using the previous edges recorded and return it
-		ArrayList<Edge> thePath = new ArrayList<Edge>();
-		Node someNode = currentNode;
-		while (someNode != source) {
-			Edge pathEdge = someNode.getPreviousEdge();
-			pathEdge.setSelected(true);
-			thePath.add(0, pathEdge); // prepend the edge to the path
-			someNode = pathEdge.otherNode(someNode);
-		}
-		return thePath;
+	public PathResult findPathUsingAStarManhattan(Node source, Node target, SearchContext context) {
+		return findPathUsingFrontier(source, target, PathFindingMethod.AStarManhattan, context);
+	}
+
+	public PathResult findPathUsingAStarZeroCostHeuristic(Node source, Node target, SearchContext context) {
+		return findPathUsingFrontier(source, target, PathFindingMethod.AStarZeroCostHeuristic, context);
+	}
+
+	public PathResult findPathUsingAStarBestFirstGreedy(Node source, Node target, SearchContext context) {
+		return findPathUsingFrontier(source, target, PathFindingMethod.AStarBestFirstGreedy, context);
+	}
+
+	public PathResult findPathUsingBidirectionalDijkstra(Node source, Node target, SearchContext context) {
+		GraphSnapshot g = snapshot();
+		return GraphSearch.bidirectionalSearch(g, indexOf(g, source), indexOf(g, target), false, context);
+	}
+
+	public PathResult findPathUsingBidirectionalAStar(Node source, Node target, SearchContext context) {
+		GraphSnapshot g = snapshot();
+		return GraphSearch.bidirectionalSearch(g, indexOf(g, source), indexOf(g, target), true, context);
+	}
+
+	public PathResult findPathUsingAStarLandmarks(Node source, Node target, SearchContext context) {
+		Landmarks someLandmarks = landmarks();
+		GraphSnapshot g = someLandmarks.getGraph();
+		return GraphSearch.bestFirstSearch(g, indexOf(g, source), indexOf(g, target),
+				PathFindingMethod.AStarLandmarks, someLandmarks, context);
+	}
+
+	public PathResult findPathUsingContractionHierarchies(Node source, Node target, SearchContext context) {
+		ContractionHierarchy ch = contractionHierarchy();
+		GraphSnapshot g = ch.getGraph();
+		return ch.findPath(indexOf(g, source), indexOf(g, target), context);
+	}
+
+	public PathResult findPathUsingArcFlags(Node source, Node target, SearchContext context) {
+		ArcFlags someFlags = arcFlags();
+		GraphSnapshot g = someFlags.getGraph();
+		return someFlags.findPath(indexOf(g, source), indexOf(g, target), context);
+	}
+
+	// the first of the k shortest paths, found with the shortest path tree into the target
+	public PathResult findPathUsingKShortestPaths(Node source, Node target, SearchContext context) {
+		GraphSnapshot g = snapshot();
+		return KShortestPaths.shortestPath(g, indexOf(g, source), indexOf(g, target), context);
+	}
+
+	private PathResult findPathUsingFrontier(Node source, Node target, PathFindingMethod theMethod,
+			SearchContext context) {
+		GraphSnapshot g = snapshot();
+		return GraphSearch.bestFirstSearch(g, indexOf(g, source), indexOf(g, target), theMethod, context);
 	}
 	///////////////////////////////////////////////////////////////////////////////////////////////
 	//Drawing /////////////////////////////////////////////////////////////////////////////////////
@@ -1244,6 +1326,10 @@ public class Graph {
 		backgroundImageWidth = width;
 		backgroundImageHeight = height;
 	}
+
+	public String getBackgroundImageFileName() {return backgroundImageFileName;}
+	public int getBackgroundImageWidth() {return backgroundImageWidth;}
+	public int getBackgroundImageHeight() {return backgroundImageHeight;}
 	
 	///////////////////////////////////////////////////////////////////////////////////////////////
 	//XML Parsing and Writing /////////////////////////////////////////////////////////////////////
@@ -1262,6 +1348,10 @@ public class Graph {
 	final public static String XMLFileNameEndTag = "</filename>";
 	final public static String XMLDimensionsStartTag = "<dimensions>";
 	final public static String XMLDimensionsEndTag = "</dimensions>";
+	// Edge weights are only used from files that have this tag. Older files
+	// store the length of every edge as its weight; those weights were never
+	// used, so the edges of those files keep following their lengths
+	final public static String XMLEdgeWeightsTag = "<edgeWeights/>";
 
 	public static String[] propertyTagPairs = { XMLCommentTag, XMLCommentEndTag, XMLBackgroundImageStartTag,
 			XMLBackgroundImageEndTag, XMLFileNameStartTag, XMLFileNameEndTag, XMLDimensionsStartTag,
@@ -0,0 +1,278 @@
+package comp2402graphEditor;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class GraphBenchmark {
+	// Command line measurements of the graph algorithms on graph files.
+	// Usage: GraphBenchmark [graph files...]   (defaults to the resources graphs)
+
+	public static String[] defaultFiles = {"resources/BiwardGraphData.xml", "resources/testGraph.xml",
+			"resources/testOutput.xml"};
+
+	public static void main(String args[]) {
+		String[] fileNames = args.length > 0 ? args : defaultFiles;
+		int largestNodeCount = 0;
+		for (String fileName : fileNames) {
+			Graph aGraph = GraphParser.parseFromFile(new File(fileName));
+			if (aGraph == null)
+				continue;
+			System.out.println(fileName + ": " + aGraph);
+			largestNodeCount = Math.max(largestNodeCount, aGraph.getNodes().size());
+			reportLoadThroughput(new File(fileName));
+			reportPreprocessing(aGraph);
+			reportDistanceOracle(aGraph);
+			reportBatchThroughput(aGraph, Graph.PathFindingMethod.Dijkstra);
+		}
+
+		// every exact path method must agree with Dijkstra, also where assigned
+		// weights are below the straight line length
+		Graph weighted = syntheticGraph(3000, 2);
+		assignRandomWeights(weighted, 200, 2);
+		System.out.println("weighted synthetic: " + weighted);
+		checkPathMethods(weighted, 300);
+
+		// loading a synthetic graph 100 times the size of the largest file
+		try {
+			File syntheticFile = File.createTempFile("synthetic", ".xml");
+			syntheticFile.deleteOnExit();
+			Graph synthetic = syntheticGraph(100 * Math.max(1, largestNodeCount), 1);
+			GraphParser.writeToFile(synthetic, syntheticFile, null, 0, 0);
+			System.out.println("synthetic: " + synthetic);
+			reportLoadThroughput(syntheticFile);
+
+			// the same graph as a binary graph file
+			File binaryFile = File.createTempFile("synthetic", GraphBinaryFile.FILE_EXTENSION);
+			binaryFile.deleteOnExit();
+			GraphParser.writeToFile(synthetic, binaryFile, null, 0, 0);
+			System.out.println("synthetic, binary: " + binaryFile.length() + " bytes, XML: " + syntheticFile.length() + " bytes");
+			reportLoadThroughput(binaryFile);
+			reportOffHeapStore(synthetic, binaryFile);
+		} catch (IOException e) {
+			System.out.println("Error: Cannot write synthetic graph file");
+		}
+	}
+
+	// nodes and edges loaded per second from aFile
+	public static void reportLoadThroughput(File aFile) {
+		GraphParser.parseFromFile(aFile); // warm up
+		long start = System.nanoTime();
+		Graph aGraph = GraphParser.parseFromFile(aFile);
+		long time = System.nanoTime() - start;
+		if (aGraph == null)
+			return;
+		System.out.println(String.format("   load: %d nodes, %d edges in %.1f ms, %.0f nodes/s, %.0f edges/s",
+				aGraph.getNodes().size(), aGraph.getEdges().size(), time / 1e6,
+				aGraph.getNodes().size() / (time / 1e9), aGraph.getEdges().size() / (time / 1e9)));
+	}
+
+	// time taken to build the preprocessed tables of the path finding methods
+	public static void reportPreprocessing(Graph aGraph) {
+		long start = System.nanoTime();
+		Landmarks someLandmarks = aGraph.computeLandmarks(Landmarks.DEFAULT_COUNT, Landmarks.Strategy.Avoid);
+		System.out.println(String.format("   %d landmarks computed in %.1f ms", someLandmarks.count(),
+				(System.nanoTime() - start) / 1e6));
+
+		start = System.nanoTime();
+		ContractionHierarchy hierarchy = aGraph.contractionHierarchy();
+		System.out.println(String.format("   %s built in %.1f ms", hierarchy, (System.nanoTime() - start) / 1e6));
+
+		start = System.nanoTime();
+		ArcFlags someArcFlags = aGraph.arcFlags();
+		System.out.println(String.format("   %s computed in %.1f ms", someArcFlags, (System.nanoTime() - start) / 1e6));
+	}
+
+	// Dijkstra queries per second on aGraph's snapshot and on an OffHeapGraphStore
+	// of the same graph saved in binaryFile, and the time to materialize an
+	// editor sized region of the store
+	public static void reportOffHeapStore(Graph aGraph, File binaryFile) {
+		OffHeapGraphStore store;
+		try {
+			long start = System.nanoTime();
+			store = OffHeapGraphStore.open(binaryFile);
+			System.out.println(String.format("   off-heap store opened in %.1f ms", (System.nanoTime() - start) / 1e6));
+		} catch (IOException e) {
+			System.out.println("Error: Cannot open off-heap store " + binaryFile);
+			return;
+		}
+		ReadOnlyGraph[] graphs = {aGraph.snapshot(), store};
+		for (ReadOnlyGraph g : graphs) {
+			SearchContext context = new SearchContext(g.nodeCount());
+			Random rand = new Random(1);
+			int queries = 200;
+			double checksum = 0.0;
+			long start = System.nanoTime();
+			for (int q = 0; q < queries; q++)
+				checksum += GraphSearch.bestFirstSearch(g, rand.nextInt(g.nodeCount()), rand.nextInt(g.nodeCount()),
+						Graph.PathFindingMethod.Dijkstra, context).getDistance();
+			long time = System.nanoTime() - start;
+			System.out.println(String.format("   %s Dijkstra: %d queries in %.1f ms, %.0f queries/s (checksum %.0f)",
+					g instanceof OffHeapGraphStore ? "off-heap store" : "snapshot", queries, time / 1e6,
+					queries / (time / 1e9), checksum));
+		}
+
+		Rectangle bounds = store.bounds();
+		Random rand = new Random(1);
+		int regions = 100, regionNodes = 0;
+		long start = System.nanoTime();
+		for (int r = 0; r < regions; r++) {
+			Rectangle region = new Rectangle(bounds.x + rand.nextInt(Math.max(1, bounds.width)),
+					bounds.y + rand.nextInt(Math.max(1, bounds.height)), 1500, 1500);
+			regionNodes += store.materialize(region).getNodes().size();
+		}
+		long time = System.nanoTime() - start;
+		System.out.println(String.format("   off-heap store: %d regions of 1500x1500 materialized in %.1f ms, %d nodes each",
+				regions, time / 1e6, regionNodes / regions));
+	}
+
+	// A road-like test graph: about nodeCount nodes on a jittered grid, each
+	// joined to its right and lower neighbours and now and then diagonally
+	public static Graph syntheticGraph(int nodeCount, long seed) {
+		Random rand = new Random(seed);
+		int width = (int) Math.ceil(Math.sqrt(nodeCount));
+		int height = (nodeCount + width - 1) / width;
+		int spacing = 30;
+		Graph aGraph = new Graph();
+		Node[] grid = new Node[width * height];
+		for (int row = 0; row < height; row++)
+			for (int column = 0; column < width; column++) {
+				Node aNode = new Node(new Point(column * spacing + rand.nextInt(spacing / 2),
+						row * spacing + rand.nextInt(spacing / 2)));
+				grid[row * width + column] = aNode;
+				aGraph.addNode(aNode);
+			}
+		ArrayList<Edge> edges = new ArrayList<Edge>();
+		for (int row = 0; row < height; row++)
+			for (int column = 0; column < width; column++) {
+				Node aNode = grid[row * width + column];
+				if (column + 1 < width)
+					edges.add(new Edge(aNode, grid[row * width + column + 1]));
+				if (row + 1 < height)
+					edges.add(new Edge(aNode, grid[(row + 1) * width + column]));
+				if (column + 1 < width && row + 1 < height && rand.nextInt(4) == 0)
+					edges.add(new Edge(aNode, grid[(row + 1) * width + column + 1]));
+			}
+		aGraph.addEdges(edges);
+		return aGraph;
+	}
+
+	// give count random edges of aGraph a weight between 1 and twice their length
+	public static void assignRandomWeights(Graph aGraph, int count, long seed) {
+		Random rand = new Random(seed);
+		ArrayList<Edge> edges = aGraph.getEdges();
+		for (int i = 0; i < count && !edges.isEmpty(); i++) {
+			Edge anEdge = edges.get(rand.nextInt(edges.size()));
+			anEdge.setWeight(1 + rand.nextInt(2 * Math.max(1, (int) anEdge.graphicalLength())));
+		}
+	}
+
+	// Compare the distances of every path method that finds shortest paths, and of
+	// the distance tables, with Dijkstra's on random queries. Prints the
+	// disagreements of each method and answers their total
+	public static int checkPathMethods(Graph aGraph, int queries) {
+		ArrayList<Node> nodes = aGraph.getNodes();
+		if (nodes.isEmpty())
+			return 0;
+		Random rand = new Random(queries);
+		Node[] sources = new Node[queries];
+		Node[] targets = new Node[queries];
+		double[] expected = new double[queries];
+		for (int q = 0; q < queries; q++) {
+			sources[q] = nodes.get(rand.nextInt(nodes.size()));
+			targets[q] = nodes.get(rand.nextInt(nodes.size()));
+			expected[q] = aGraph.findPath(sources[q], targets[q], Graph.PathFindingMethod.Dijkstra).getDistance();
+		}
+
+		int disagreements = 0;
+		for (Graph.PathFindingMethod theMethod : Graph.PathFindingMethod.values()) {
+			if (theMethod == Graph.PathFindingMethod.Dijkstra || theMethod == Graph.PathFindingMethod.AStarManhattan
+					|| theMethod == Graph.PathFindingMethod.AStarBestFirstGreedy
+					|| theMethod == Graph.PathFindingMethod.GreedyBestNeighbour)
+				continue; // the greedy methods and Manhattan distance need not find shortest paths
+			int wrong = 0;
+			for (int q = 0; q < queries; q++)
+				if (aGraph.findPath(sources[q], targets[q], theMethod).getDistance() != expected[q])
+					wrong++;
+			System.out.println(String.format("   %s: %d of %d queries disagree with Dijkstra",
+					Graph.nameOfMethod(theMethod), wrong, queries));
+			disagreements += wrong;
+		}
+
+		List<Node> tableSources = Arrays.asList(sources).subList(0, Math.min(queries, 20));
+		List<Node> tableTargets = Arrays.asList(targets);
+		double[][] expectedTable = new double[tableSources.size()][queries];
+		for (int i = 0; i < tableSources.size(); i++)
+			for (int j = 0; j < queries; j++)
+				expectedTable[i][j] = aGraph.findPath(sources[i], targets[j], Graph.PathFindingMethod.Dijkstra)
+						.getDistance();
+		for (DistanceTable.Mode mode : DistanceTable.Mode.values()) {
+			double[][] table = aGraph.distanceTable(tableSources, tableTargets, mode);
+			int wrong = 0;
+			for (int i = 0; i < tableSources.size(); i++)
+				for (int j = 0; j < queries; j++)
+					if (table[i][j] != expectedTable[i][j])
+						wrong++;
+			System.out.println(String.format("   distance table %s: %d of %d entries disagree with Dijkstra", mode,
+					wrong, tableSources.size() * queries));
+			disagreements += wrong;
+		}
+		return disagreements;
+	}
+
+	// queries per second of Graph.findPaths over all node pairs with 1, 2, 4, ...
+	// threads up to the number of processors
+	public static void reportBatchThroughput(Graph aGraph, Graph.PathFindingMethod theMethod) {
+		ArrayList<PathQuery> queries = new ArrayList<PathQuery>();
+		for (Node source : aGraph.getNodes())
+			for (Node target : aGraph.getNodes())
+				queries.add(new PathQuery(source, target, theMethod));
+		aGraph.findPaths(queries); // warm up
+
+		int processors = Runtime.getRuntime().availableProcessors();
+		int threads = 1;
+		while (true) {
+			long start = System.nanoTime();
+			aGraph.findPaths(queries, threads);
+			long time = System.nanoTime() - start;
+			System.out.println(String.format("   batch %s, %d threads: %d queries in %.1f ms, %.0f queries/s",
+					Graph.nameOfMethod(theMethod), threads, queries.size(), time / 1e6, queries.size() / (time / 1e9)));
+			if (threads == processors)
+				break;
+			threads = Math.min(threads * 2, processors);
+		}
+	}
+
+	// memory footprint, stretch and query speed of distance oracles with k = 1..3
+	public static void reportDistanceOracle(Graph aGraph) {
+		GraphSnapshot g = aGraph.snapshot();
+		int n = g.nodeCount();
+		if (n == 0)
+			return;
+		for (int k = 1; k <= 3; k++) {
+			long start = System.nanoTime();
+			DistanceOracle oracle = new DistanceOracle(g, k);
+			long buildTime = System.nanoTime() - start;
+			double[] stretch = oracle.measureStretch(Math.min(n, 50), new SearchContext(n));
+
+			int queries = 1000000;
+			Random rand = new Random(k);
+			double checksum = 0.0;
+			start = System.nanoTime();
+			for (int q = 0; q < queries; q++)
+				checksum += oracle.estimateDistance(rand.nextInt(n), rand.nextInt(n));
+			long queryTime = System.nanoTime() - start;
+
+			System.out.println(String.format(
+					"   oracle k=%d (stretch <= %d): %d bunch entries, %d bytes, built in %.1f ms,"
+							+ " average stretch %.3f, worst %.3f, %.3f us/estimate (checksum %.0f)",
+					k, oracle.stretch(), oracle.bunchEntries(), oracle.memoryFootprint(), buildTime / 1e6,
+					stretch[0], stretch[1], queryTime / 1e3 / queries, checksum));
+		}
+	}
+}
@@ -0,0 +1,387 @@
+package comp2402graphEditor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class GraphBinaryFile {
+	// A compact binary graph file, the alternative to the XML files of
+	// GraphParser for large graphs. Everything is stored as arrays of big endian
+	// ints (then bytes), one array per property, so a file is read by mapping
+	// each array with FileChannel.map and copying it out in one bulk get
+	// (OffHeapGraphStore leaves the arrays mapped instead):
+	//
+	//   header      HEADER_INTS ints: magic, version, node count n, edge count m,
+	//               arc count, string count, string bytes, background image
+	//               (string index, width, height), grid (left, top, cell size,
+	//               columns, rows), then zeros
+	//   nodes       x[n], y[n], weight[n], label[n]
+	//   adjacency   firstArc[n+1], arcHead[arcs], arcEdge[arcs] (as in GraphSnapshot)
+	//   edges       start[m], end[m], weight[m], label[m]
+	//   strings     stringStart[strings+1]
+	//   grid        cellStart[cells+1], cellNodes[n] (version 2 on)
+	//   flags       nodeFlags[n], edgeFlags[m] (bytes: SELECTED, MARKED, ASSIGNED_WEIGHT)
+	//   text        the UTF-8 bytes of the strings, string s is stringStart[s] .. stringStart[s+1]-1
+	//
+	// Labels are indices into the string table (-1 for none), so repeated labels
+	// are stored once. Edge weights are the weights the algorithms use; an edge
+	// whose weight was never assigned (the weight is its length) is flagged so.
+	// The grid is a spatial index for OffHeapGraphStore.nodesIn: the bounding box
+	// of the nodes is cut into square cells (row by row, about NODES_PER_CELL
+	// nodes each) and cellNodes lists the nodes cell by cell, cell c holding
+	// cellNodes[cellStart[c]] .. cellNodes[cellStart[c+1]-1] in index order.
+	// Files are written in the current version; version 1 files (no grid) are
+	// still read. A file of any other version is rejected.
+
+	public static final String FILE_EXTENSION = ".gbin";
+	private static final int FILE_MAGIC = 0x4752424e; // "GRBN"
+	private static final int FILE_VERSION = 2;
+	private static final int FIRST_GRID_VERSION = 2;
+	private static final int HEADER_INTS = 16;
+	private static final int NODES_PER_CELL = 8;
+
+	private static final byte SELECTED = 1;
+	private static final byte MARKED = 2;
+	static final byte ASSIGNED_WEIGHT = 4;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	// Answer whether aFile should be written in this format: it is named so,
+	// or it already holds a graph in this format
+	public static boolean isBinaryFile(File aFile) {
+		return aFile.getName().toLowerCase().endsWith(FILE_EXTENSION) || hasBinaryHeader(aFile);
+	}
+
+	// Answer whether aFile starts with this format's magic number
+	public static boolean hasBinaryHeader(File aFile) {
+		if (!aFile.isFile() || aFile.length() < 4)
+			return false;
+		try {
+			FileInputStream input = new FileInputStream(aFile);
+			try {
+				byte[] magic = new byte[4];
+				return input.read(magic) == 4 && ByteBuffer.wrap(magic).getInt() == FILE_MAGIC;
+			} finally {
+				input.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	// READING
+
+	public static Graph read(File aFile) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(aFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			Layout layout = new Layout(channel);
+			int n = layout.nodes, m = layout.edges;
+			int[] x = ints(intSection(channel, layout.nodeX, n));
+			int[] y = ints(intSection(channel, layout.nodeY, n));
+			int[] nodeWeight = ints(intSection(channel, layout.nodeWeight, n));
+			int[] nodeLabel = ints(intSection(channel, layout.nodeLabel, n));
+			int[] edgeStart = ints(intSection(channel, layout.edgeStart, m)); // the adjacency follows from the edges
+			int[] edgeEnd = ints(intSection(channel, layout.edgeEnd, m));
+			int[] edgeWeight = ints(intSection(channel, layout.edgeWeight, m));
+			int[] edgeLabel = ints(intSection(channel, layout.edgeLabel, m));
+			byte[] nodeFlags = bytes(byteSection(channel, layout.nodeFlags, n));
+			byte[] edgeFlags = bytes(byteSection(channel, layout.edgeFlags, m));
+			String[] table = strings(channel, layout);
+
+			Graph aGraph = new Graph();
+			Node[] nodes = new Node[n];
+			for (int v = 0; v < n; v++) {
+				Node aNode = new Node();
+				aNode.setLocation(x[v], y[v]);
+				aNode.setLabel(string(table, nodeLabel[v]));
+				aNode.setWeight(nodeWeight[v]);
+				aNode.setSelected((nodeFlags[v] & SELECTED) != 0);
+				aNode.setMarked((nodeFlags[v] & MARKED) != 0);
+				aGraph.addNode(aNode);
+				nodes[v] = aNode;
+			}
+			ArrayList<Edge> edges = new ArrayList<Edge>(m);
+			for (int e = 0; e < m; e++) {
+				if (edgeStart[e] < 0 || edgeStart[e] >= n || edgeEnd[e] < 0 || edgeEnd[e] >= n)
+					throw new IOException("binary graph file has an edge to a missing node");
+				Edge anEdge = new Edge(string(table, edgeLabel[e]), nodes[edgeStart[e]], nodes[edgeEnd[e]]);
+				if ((edgeFlags[e] & ASSIGNED_WEIGHT) != 0)
+					anEdge.setWeight(edgeWeight[e]);
+				anEdge.setSelected((edgeFlags[e] & SELECTED) != 0);
+				anEdge.setMarked((edgeFlags[e] & MARKED) != 0);
+				edges.add(anEdge);
+			}
+			aGraph.addEdges(edges);
+			if (layout.image >= 0)
+				aGraph.setBackgroundImageInfo(string(table, layout.image), layout.imageWidth, layout.imageHeight);
+			return aGraph;
+		} finally {
+			file.close();
+		}
+	}
+
+	// Where the arrays of a binary graph file are, from its header
+	static class Layout {
+		final int nodes, edges, arcs, strings, stringBytes;
+		final int image, imageWidth, imageHeight;
+		final int gridLeft, gridTop, cellSize, columns, rows; // columns * rows == 0 if there is no grid
+		final long nodeX, nodeY, nodeWeight, nodeLabel;
+		final long firstArc, arcHead, arcEdge;
+		final long edgeStart, edgeEnd, edgeWeight, edgeLabel;
+		final long stringStart, cellStart, cellNodes, nodeFlags, edgeFlags, text;
+
+		Layout(FileChannel channel) throws IOException {
+			if (channel.size() < 4 * HEADER_INTS)
+				throw new IOException("not a binary graph file");
+			int[] header = ints(intSection(channel, 0, HEADER_INTS));
+			if (header[0] != FILE_MAGIC)
+				throw new IOException("not a binary graph file");
+			if (header[1] < 1 || header[1] > FILE_VERSION)
+				throw new IOException("binary graph file version " + header[1] + ", expected " + FILE_VERSION);
+			nodes = header[2];
+			edges = header[3];
+			arcs = header[4];
+			strings = header[5];
+			stringBytes = header[6];
+			image = header[7];
+			imageWidth = header[8];
+			imageHeight = header[9];
+			boolean hasGrid = header[1] >= FIRST_GRID_VERSION;
+			gridLeft = hasGrid ? header[10] : 0;
+			gridTop = hasGrid ? header[11] : 0;
+			cellSize = hasGrid ? header[12] : 1;
+			columns = hasGrid ? header[13] : 0;
+			rows = hasGrid ? header[14] : 0;
+
+			nodeX = 4L * HEADER_INTS;
+			nodeY = nodeX + 4L * nodes;
+			nodeWeight = nodeY + 4L * nodes;
+			nodeLabel = nodeWeight + 4L * nodes;
+			firstArc = nodeLabel + 4L * nodes;
+			arcHead = firstArc + 4L * (nodes + 1L);
+			arcEdge = arcHead + 4L * arcs;
+			edgeStart = arcEdge + 4L * arcs;
+			edgeEnd = edgeStart + 4L * edges;
+			edgeWeight = edgeEnd + 4L * edges;
+			edgeLabel = edgeWeight + 4L * edges;
+			stringStart = edgeLabel + 4L * edges;
+			cellStart = stringStart + 4L * (strings + 1L);
+			cellNodes = cellStart + (hasGrid ? 4L * (cellCount() + 1L) : 0L);
+			nodeFlags = cellNodes + (hasGrid ? 4L * nodes : 0L);
+			edgeFlags = nodeFlags + nodes;
+			text = edgeFlags + edges;
+			if (nodes < 0 || edges < 0 || arcs < 0 || strings < 0 || stringBytes < 0
+					|| cellSize < 1 || columns < 0 || rows < 0 || cellCount() > Integer.MAX_VALUE - 1
+					|| text + stringBytes != channel.size())
+				throw new IOException("binary graph file is truncated or corrupted");
+		}
+
+		boolean hasGrid() {return columns > 0 && rows > 0;}
+		long cellCount() {return (long) columns * rows;}
+	}
+
+	// the count ints at position of channel, mapped
+	static IntBuffer intSection(FileChannel channel, long position, int count) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).asIntBuffer();
+	}
+
+	// the count bytes at position of channel, mapped
+	static ByteBuffer byteSection(FileChannel channel, long position, int count) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, count);
+	}
+
+	private static int[] ints(IntBuffer section) {
+		int[] result = new int[section.remaining()];
+		section.get(result);
+		return result;
+	}
+
+	private static byte[] bytes(ByteBuffer section) {
+		byte[] result = new byte[section.remaining()];
+		section.get(result);
+		return result;
+	}
+
+	// the string table of a binary graph file
+	static String[] strings(FileChannel channel, Layout layout) throws IOException {
+		int[] stringStart = ints(intSection(channel, layout.stringStart, layout.strings + 1));
+		byte[] text = bytes(byteSection(channel, layout.text, layout.stringBytes));
+		String[] table = new String[layout.strings];
+		for (int s = 0; s < layout.strings; s++) {
+			if (stringStart[s] < 0 || stringStart[s] > stringStart[s + 1] || stringStart[s + 1] > text.length)
+				throw new IOException("binary graph file has a corrupted string table");
+			table[s] = new String(text, stringStart[s], stringStart[s + 1] - stringStart[s], UTF8);
+		}
+		return table;
+	}
+
+	static String string(String[] table, int s) throws IOException {
+		if (s == -1)
+			return null;
+		if (s < 0 || s >= table.length)
+			throw new IOException("binary graph file has a label outside its string table");
+		return table[s];
+	}
+
+	// WRITING
+
+	public static void write(Graph aGraph, File aFile) throws IOException {
+		GraphSnapshot g = aGraph.snapshot();
+		int n = g.nodeCount(), m = g.edgeCount();
+
+		// the string table: every distinct label once
+		HashMap<String, Integer> stringIndex = new HashMap<String, Integer>();
+		ArrayList<byte[]> strings = new ArrayList<byte[]>();
+		int[] nodeLabel = new int[n];
+		for (int v = 0; v < n; v++)
+			nodeLabel[v] = stringIndex(g.node(v).getLabel(), stringIndex, strings);
+		int[] edgeLabel = new int[m];
+		for (int e = 0; e < m; e++)
+			edgeLabel[e] = stringIndex(g.edge(e).getLabel(), stringIndex, strings);
+		int image = -1;
+		String imageFileName = aGraph.getBackgroundImageFileName();
+		if (imageFileName != null && !imageFileName.isEmpty())
+			image = stringIndex(imageFileName, stringIndex, strings);
+		int stringBytes = 0;
+		for (byte[] s : strings)
+			stringBytes += s.length;
+		Grid grid = new Grid(g);
+
+		DataOutputStream outputFile = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(aFile), 1 << 16));
+		try {
+			outputFile.writeInt(FILE_MAGIC);
+			outputFile.writeInt(FILE_VERSION);
+			outputFile.writeInt(n);
+			outputFile.writeInt(m);
+			outputFile.writeInt(g.arcCount());
+			outputFile.writeInt(strings.size());
+			outputFile.writeInt(stringBytes);
+			outputFile.writeInt(image);
+			outputFile.writeInt(aGraph.getBackgroundImageWidth());
+			outputFile.writeInt(aGraph.getBackgroundImageHeight());
+			outputFile.writeInt(grid.left);
+			outputFile.writeInt(grid.top);
+			outputFile.writeInt(grid.cellSize);
+			outputFile.writeInt(grid.columns);
+			outputFile.writeInt(grid.rows);
+			for (int i = 15; i < HEADER_INTS; i++)
+				outputFile.writeInt(0);
+
+			writeInts(outputFile, g.x);
+			writeInts(outputFile, g.y);
+			for (int v = 0; v < n; v++)
+				outputFile.writeInt(g.node(v).getWeight());
+			writeInts(outputFile, nodeLabel);
+
+			writeInts(outputFile, g.firstArc);
+			writeInts(outputFile, g.arcHead);
+			writeInts(outputFile, g.arcEdge);
+
+			writeInts(outputFile, g.edgeStart);
+			writeInts(outputFile, g.edgeEnd);
+			for (int e = 0; e < m; e++)
+				outputFile.writeInt(g.edge(e).getWeight());
+			writeInts(outputFile, edgeLabel);
+
+			int start = 0;
+			for (byte[] s : strings) {
+				outputFile.writeInt(start);
+				start += s.length;
+			}
+			outputFile.writeInt(start);
+
+			writeInts(outputFile, grid.cellStart);
+			writeInts(outputFile, grid.cellNodes);
+
+			for (int v = 0; v < n; v++)
+				outputFile.writeByte(flags(g.node(v).isSelected(), g.node(v).isMarked(), false));
+			for (int e = 0; e < m; e++)
+				outputFile.writeByte(flags(g.edge(e).isSelected(), g.edge(e).isMarked(), g.edge(e).hasAssignedWeight()));
+			for (byte[] s : strings)
+				outputFile.write(s);
+		} finally {
+			outputFile.close();
+		}
+	}
+
+	// The grid section of a graph: its nodes sorted into square cells
+	private static class Grid {
+		int left = 0, top = 0, cellSize = 1, columns = 0, rows = 0;
+		int[] cellStart = {0};
+		int[] cellNodes;
+
+		Grid(GraphSnapshot g) {
+			int n = g.nodeCount();
+			cellNodes = new int[n];
+			if (n == 0)
+				return;
+			int right = Integer.MIN_VALUE, bottom = Integer.MIN_VALUE;
+			left = Integer.MAX_VALUE;
+			top = Integer.MAX_VALUE;
+			for (int v = 0; v < n; v++) {
+				left = Math.min(left, g.x[v]);
+				top = Math.min(top, g.y[v]);
+				right = Math.max(right, g.x[v]);
+				bottom = Math.max(bottom, g.y[v]);
+			}
+			long width = (long) right - left + 1, height = (long) bottom - top + 1;
+			// cells of about NODES_PER_CELL nodes each if the nodes were spread evenly
+			double cellArea = (double) width * height * NODES_PER_CELL / n;
+			cellSize = (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.ceil(Math.sqrt(cellArea))));
+			columns = (int) ((width + cellSize - 1) / cellSize);
+			rows = (int) ((height + cellSize - 1) / cellSize);
+			while ((long) columns * rows > 2L * n + 1) {
+				// a long thin box: grow the cells until there are not too many of them
+				cellSize = (int) Math.min(Integer.MAX_VALUE, 2L * cellSize);
+				columns = (int) ((width + cellSize - 1) / cellSize);
+				rows = (int) ((height + cellSize - 1) / cellSize);
+			}
+
+			// counting sort of the nodes by cell, keeping index order within a cell
+			int[] cell = new int[n];
+			cellStart = new int[columns * rows + 1];
+			for (int v = 0; v < n; v++) {
+				cell[v] = (int) (((long) g.y[v] - top) / cellSize) * columns + (int) (((long) g.x[v] - left) / cellSize);
+				cellStart[cell[v] + 1]++;
+			}
+			for (int c = 0; c < columns * rows; c++)
+				cellStart[c + 1] += cellStart[c];
+			int[] next = Arrays.copyOf(cellStart, columns * rows);
+			for (int v = 0; v < n; v++)
+				cellNodes[next[cell[v]]++] = v;
+		}
+	}
+
+	private static int stringIndex(String aString, HashMap<String, Integer> stringIndex, ArrayList<byte[]> strings) {
+		if (aString == null)
+			return -1;
+		Integer index = stringIndex.get(aString);
+		if (index == null) {
+			index = strings.size();
+			stringIndex.put(aString, index);
+			strings.add(aString.getBytes(UTF8));
+		}
+		return index;
+	}
+
+	private static int flags(boolean selected, boolean marked, boolean assignedWeight) {
+		return (selected ? SELECTED : 0) | (marked ? MARKED : 0) | (assignedWeight ? ASSIGNED_WEIGHT : 0);
+	}
+
+	private static void writeInts(DataOutputStream outputFile, int[] values) throws IOException {
+		for (int value : values)
+			outputFile.writeInt(value);
+	}
+}
@@ -39,6 +39,18 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
     private Graph aGraph; //the graph being edited
     
     private File graphDataFile; //File the graph was loaded from
+    
+    //binary graph files with more nodes than this are not loaded but opened as an
+    //OffHeapGraphStore, and only the part of the graph around the view is materialized
+    public static int storeNodeThreshold = 200000;
+    private OffHeapGraphStore graphStore = null; //store of the open graph file when it is shown a region at a time
+    private Rectangle storeRegion = null; //area of graphStore materialized as aGraph
+    private int storeRegionChangeCount = 0; //aGraph.changeCount() when the region was materialized
+    private boolean keepStoreRegion = false; //true while the user keeps an edited region the view has left
+    private Dimension editorSize = null; //preferred size of the editor before a store was opened
+    
+    private ArrayList<PathResult> alternativePaths = null; //k shortest paths between the selected nodes
+    private int alternativeIndex = 0; //alternative currently shown
     private String imageDataFileName;
     private File imageDataFile; //File background image is loaded
     private BufferedImage  backgroundImage = null; //background image
@@ -208,13 +220,13 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
                                 edges.next().drawWithPenColor(pen, displayEdgeWeights);
 
                           currentNode.drawWithPenColor(pen, displayNodeLabels);
-                          currentNode.getLocation().translate(dx,dy);
+                          currentNode.translate(dx,dy);
                           edges = currentNode.incidentEdges().iterator();
                              while(edges.hasNext())
                                 edges.next().draw(pen, displayEdgeWeights);
-                          Iterator<Node>    nodes = currentNode.neighbours().iterator();
-                             while(nodes.hasNext())
-                                nodes.next().draw(pen, displayNodeLabels);
+                          edges = currentNode.incidentEdges().iterator();
+                             while(edges.hasNext())
+                                edges.next().otherNode(currentNode).draw(pen, displayNodeLabels);
 
 
                           currentNode.draw(pen, displayNodeLabels);
@@ -224,12 +236,12 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
                }
             else {
                  pen.setColor(getBackground());
-                 pen.drawLine(dragNode.getLocation().x, dragNode.getLocation().y,
+                 pen.drawLine(dragNode.getX(), dragNode.getY(),
                           dragStartLocation.x, dragStartLocation.y);
 
                  dragStartLocation = event.getPoint();
                  pen.setColor(Color.black);
-                 pen.drawLine(dragNode.getLocation().x, dragNode.getLocation().y,
+                 pen.drawLine(dragNode.getX(), dragNode.getY(),
                  dragStartLocation.x, dragStartLocation.y);
                  
             }
@@ -405,13 +417,13 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
         	  aGraph.draw(aPen2D);
 		  if (dragNode != null)
 		   if (!dragNode.isSelected()){
-                     aPen.drawLine(dragNode.getLocation().x, dragNode.getLocation().y,
+                     aPen.drawLine(dragNode.getX(), dragNode.getY(),
                           dragStartLocation.x, dragStartLocation.y);
                      
                      double lineLength = Graph.distanceBetween(
                   		   dragNode.getLocation(), dragStartLocation);
-                     int ManhattanX = Math.abs(dragNode.getLocation().x - dragStartLocation.x);
-                     int ManhattanY = Math.abs(dragNode.getLocation().y - dragStartLocation.y);
+                     int ManhattanX = Math.abs(dragNode.getX() - dragStartLocation.x);
+                     int ManhattanY = Math.abs(dragNode.getY() - dragStartLocation.y);
                      int ManhattanDistance = ManhattanX + ManhattanY;
                      aPen.drawString("Crow Flies: "+ (int) lineLength, 30, 90);
                      aPen.drawString("Manhattan: "+ ManhattanDistance, 30, 110);
@@ -461,6 +473,54 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
        aGraph.findPath(theMethod);
        update();             
     }
+    public void findNodeByLabel() {
+       String inputString = JOptionPane.showInputDialog(this, "Please enter a label or the beginning of one");
+       if(inputString == null || inputString.trim().length() == 0) return;
+       int count = aGraph.selectNodesWithLabelPrefix(inputString.trim());
+       System.out.println(count + " node(s) labelled " + inputString.trim() + "...");
+       update();
+    }
+    public void nodesWithinDistance() {
+       String inputString = JOptionPane.showInputDialog(this, "Please enter the distance");
+       if(inputString == null || inputString.trim().length() == 0) return;
+       try {
+          aGraph.showNodesWithinDistance(Double.parseDouble(inputString.trim()));
+       } catch (NumberFormatException e) {
+          System.out.println("ERROR: Not a distance: " + inputString);
+       }
+       update();
+    }
+    public void kShortestPaths() {
+       ArrayList<Node> selectedNodes = aGraph.selectedNodes();
+       if(selectedNodes.size() != 2) {
+          System.out.println("ERROR: Select two nodes to find alternative paths");
+          return;
+       }
+       String inputString = JOptionPane.showInputDialog(this, "Please enter the number of paths", "3");
+       if(inputString == null || inputString.trim().length() == 0) return;
+       try {
+          alternativePaths = aGraph.findKShortestPaths(selectedNodes.get(0), selectedNodes.get(1),
+                Integer.parseInt(inputString.trim()));
+       } catch (NumberFormatException e) {
+          System.out.println("ERROR: Not a number: " + inputString);
+          return;
+       }
+       alternativeIndex = -1;
+       nextAlternativePath();
+    }
+    public void nextAlternativePath() {
+       if(alternativePaths == null || alternativePaths.isEmpty()) {
+          System.out.println("No alternative paths");
+          return;
+       }
+       alternativeIndex = (alternativeIndex + 1) % alternativePaths.size();
+       PathResult thePath = alternativePaths.get(alternativeIndex);
+       aGraph.selectPath(thePath);
+       System.out.println("Path " + (alternativeIndex + 1) + " of " + alternativePaths.size() + " ["
+             + Graph.nameOfMethod(thePath.getMethod()) + "]: " + thePath.getDistance() + " ("
+             + thePath.getEdgeIds().length + " edges)");
+       update();
+    }
     public void findSpanningTree() {
        aGraph.findMinimumCostSpanningTree();
        update();             
@@ -521,7 +581,7 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
 	   }
 	   else if (e.getSource() == edgeEditWeightItem){
        	  String inputString = null;
-          inputString = JOptionPane.showInputDialog(this, "Please enter int edge weight (greater than 0)", "" + popUpEdge.getWeight()); 
+          inputString = JOptionPane.showInputDialog(this, "Please enter int edge weight (greater than 0, or 0 to use the edge length)", "" + popUpEdge.getWeight()); 
           if(inputString != null && inputString.trim().length() > 0){
         	 popUpEdge.parseInputWeightString(inputString.trim());
 
@@ -535,7 +595,9 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
 	// create a new empty graph
 	public void newGraph() {
 	    aGraph = new Graph();
+	    alternativePaths = null;
 	    graphDataFile = null;
+	    closeGraphStore();
 		update(); 
 	}
 	
@@ -552,6 +614,7 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
         
         
         chooser.setCurrentDirectory(currentDirectory);
+        addGraphFileFilters(chooser);
         
         
         int returnVal = chooser.showOpenDialog(this);
@@ -562,12 +625,85 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
         	
        
         	System.out.println("Opening File: " + graphDataFile.getAbsolutePath());
-			aGraph = GraphParser.parseFromFile(graphDataFile);
+        	closeGraphStore();
+        	if(!openGraphStore(graphDataFile))
+        		aGraph = GraphParser.parseFromFile(graphDataFile);
+			alternativePaths = null;
          
         }
 		update(); 
 	}
 	
+	// Open aFile as an OffHeapGraphStore if it is a binary graph file with more
+	// than storeNodeThreshold nodes, and show the region around the view.
+	// Answer false if the file should be loaded as a whole instead
+	private boolean openGraphStore(File aFile) {
+		if(!GraphBinaryFile.hasBinaryHeader(aFile)) return false;
+		OffHeapGraphStore store;
+		try {
+			store = OffHeapGraphStore.open(aFile);
+		} catch (IOException e) {
+			return false; //GraphParser reports what is wrong with the file
+		}
+		if(store.nodeCount() <= storeNodeThreshold) return false;
+		
+		graphStore = store;
+		editorSize = getPreferredSize();
+		Rectangle bounds = graphStore.bounds();
+		setPreferredSize(new Dimension(Math.max(editorSize.width, bounds.x + bounds.width),
+				Math.max(editorSize.height, bounds.y + bounds.height)));
+		revalidate();
+		showStoreRegion();
+		System.out.println(graphStore + " is shown a region at a time; edits are not written back to " + aFile.getName());
+		return true;
+	}
+	
+	private void closeGraphStore() {
+		if(graphStore == null) return;
+		graphStore = null;
+		storeRegion = null;
+		setPreferredSize(editorSize);
+		revalidate();
+	}
+	
+	// Materialize the part of graphStore around the visible part of the editor:
+	// the visible rectangle with a margin of its own size on every side, so
+	// the graph is only replaced after the view has scrolled some distance
+	private void showStoreRegion() {
+		Rectangle visible = getVisibleRect();
+		if(visible.isEmpty()) visible = new Rectangle(0, 0, getWidth(), getHeight());
+		storeRegion = new Rectangle(visible.x - visible.width, visible.y - visible.height,
+				3 * visible.width, 3 * visible.height);
+		aGraph = graphStore.materialize(storeRegion);
+		storeRegionChangeCount = aGraph.changeCount();
+		keepStoreRegion = false;
+		alternativePaths = null;
+	}
+	
+	// called by the view when the editor is scrolled or resized
+	public void viewportChanged() {
+		if(graphStore == null) return;
+		if(storeRegion.contains(getVisibleRect())) {
+			keepStoreRegion = false; //ask again the next time the view leaves the region
+			return;
+		}
+		if(keepStoreRegion) return;
+		if(aGraph.changeCount() != storeRegionChangeCount) {
+			//the store is read only, replacing an edited region would lose the edits
+			int answer = JOptionPane.showConfirmDialog(this,
+					"The region shown has been edited. Edits are not written back to the graph file.\n"
+					+ "Discard the edits and show the part of the graph in view?\n"
+					+ "(Choose No to keep editing this region, Save As keeps the edits in a file of their own)",
+					"Edited region", JOptionPane.YES_NO_OPTION);
+			if(answer != JOptionPane.YES_OPTION) {
+				keepStoreRegion = true;
+				return;
+			}
+		}
+		showStoreRegion();
+		update();
+	}
+	
 	public void openBackgroundImage() {
 		// This code loads a new graph from a file of the user's choosing
 		
@@ -604,7 +740,12 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
 	public void saveGraph() {
 		// This code saves the graph to a file
 		//save the graph to the current graph data file
-		if(graphDataFile != null){
+		if(graphStore != null){
+			//the graph is a region of a store, saving it would overwrite the whole graph
+			System.out.println("The graph is a region of " + graphDataFile + ", choose a new file to save it to");
+			saveAsGraph();
+		}
+		else if(graphDataFile != null){
 			if(backgroundImage != null && displayBackgroundImage){
 				int imageWidth = backgroundImage.getWidth(this);
 				int imageHeight = backgroundImage.getHeight(this);
@@ -629,6 +770,19 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
 		}
 	}
 	
+	// Offer the graph file formats in chooser: XML and GraphBinaryFile files
+	// (GraphParser tells them apart by their contents). Answer the binary filter
+	private javax.swing.filechooser.FileFilter addGraphFileFilters(JFileChooser chooser) {
+		javax.swing.filechooser.FileFilter xmlFilter =
+				new javax.swing.filechooser.FileNameExtensionFilter("Graph XML files (*.xml)", "xml");
+		javax.swing.filechooser.FileFilter binaryFilter = new javax.swing.filechooser.FileNameExtensionFilter(
+				"Binary graph files (*" + GraphBinaryFile.FILE_EXTENSION + ")", GraphBinaryFile.FILE_EXTENSION.substring(1));
+		chooser.addChoosableFileFilter(xmlFilter);
+		chooser.addChoosableFileFilter(binaryFilter);
+		chooser.setFileFilter(chooser.getAcceptAllFileFilter());
+		return binaryFilter;
+	}
+
 	public void saveAsGraph(){
 		//choose a file to save the graph to
 		
@@ -640,15 +794,23 @@ public class GraphEditor extends JPanel implements MouseListener, ActionListener
         File currentDirectory = new File(currentDirectoryProperty); 
         
         chooser.setCurrentDirectory(currentDirectory);
+        javax.swing.filechooser.FileFilter binaryFilter = addGraphFileFilters(chooser);
         	    	     
         int returnVal = chooser.showSaveDialog(this);
          
         if (returnVal == JFileChooser.APPROVE_OPTION) { 
             
         	File selectedFile = chooser.getSelectedFile();
+        	// a name typed under the binary filter gets the binary extension
+        	if(selectedFile != null && chooser.getFileFilter() == binaryFilter
+        			&& !selectedFile.getName().toLowerCase().endsWith(GraphBinaryFile.FILE_EXTENSION))
+        		selectedFile = new File(selectedFile.getPath() + GraphBinaryFile.FILE_EXTENSION);
         	
         	if(selectedFile != null) graphDataFile = selectedFile;
         	
+        	//a region of a store becomes a graph of its own once saved
+        	graphStore = null;
+        	storeRegion = null;
         	saveGraph();        	
         }	
 	}
@@ -3,6 +3,7 @@ package comp2402graphEditor;
 import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;
+import javax.swing.event.*;
 
 //DISCLAIMER!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!
 //==========
@@ -18,7 +19,7 @@ import javax.swing.*;
 // This class represents the view of the graph editor
 // It contains the menus and dispatching of menu events
 
-public class GraphEditorGUIView extends JFrame implements ActionListener, KeyListener {
+public class GraphEditorGUIView extends JFrame implements ActionListener, KeyListener, ChangeListener {
 
 	private GraphEditor		editor;
     private JScrollPane     scrollpane;
@@ -43,12 +44,21 @@ public class GraphEditorGUIView extends JFrame implements ActionListener, KeyLis
     private JMenuItem       findAStarNoHeuristicPathItem = new JMenuItem("Find Path: AStar no heuristic: h(n)=0");
     private JMenuItem       findAStarBestFirstGreedyPathItem = new JMenuItem("Find Path: AStar Greedy: g(n)=0");
     private JMenuItem       findSimpleGreedyPathItem = new JMenuItem("Find Path: Simple Greedy Best Neighbour");
+    private JMenuItem       findBidirectionalDijkstraPathItem = new JMenuItem("Find Path: Bidirectional Dijkstra");
+    private JMenuItem       findBidirectionalAStarPathItem = new JMenuItem("Find Path: Bidirectional AStar lower bound");
+    private JMenuItem       findAStarLandmarksPathItem = new JMenuItem("Find Path: AStar landmarks (ALT)");
+    private JMenuItem       findContractionHierarchiesPathItem = new JMenuItem("Find Path: Contraction Hierarchies");
+    private JMenuItem       findArcFlagsPathItem = new JMenuItem("Find Path: Arc Flags");
     private JMenuItem       hasPathItem = new JMenuItem("has s-t Path");
     private JMenuItem       findSpanningTreeItem = new JMenuItem("Min Cost Spanning Tree");
+    private JMenuItem       nodesWithinDistanceItem = new JMenuItem("Nodes Within Distance...");
+    private JMenuItem       kShortestPathsItem = new JMenuItem("K Shortest Paths...");
+    private JMenuItem       nextAlternativePathItem = new JMenuItem("Next Alternative Path");
     
     //SEARCH MENU ITEMS
     private JMenuItem       depthFirstSearchItem = new JMenuItem("depthFirstSearch");
     private JMenuItem       breadthFirstSearchItem = new JMenuItem("breathFirstSearch");
+    private JMenuItem       findNodeByLabelItem = new JMenuItem("Find Node by Label...");
 
     //EDIT MENU ITEMS
     private JMenuItem       clearSelectionsItem = new JMenuItem("Clear Selections");
@@ -78,6 +88,7 @@ public class GraphEditorGUIView extends JFrame implements ActionListener, KeyLis
 		super(title);
 		editor = new GraphEditor(this);
         scrollpane = new JScrollPane(editor);
+        scrollpane.getViewport().addChangeListener(this);
 		getContentPane().add(scrollpane, "Center");
 		initialize();
 	    editor.displayGraphOnly();
@@ -147,6 +158,9 @@ public class GraphEditorGUIView extends JFrame implements ActionListener, KeyLis
         depthFirstSearchItem.addActionListener(this);
         searchMenu.add(breadthFirstSearchItem);
         breadthFirstSearchItem.addActionListener(this);
+        searchMenu.add(new JSeparator());
+        searchMenu.add(findNodeByLabelItem);
+        findNodeByLabelItem.addActionListener(this);
  
         //PATHES MENU
         aMenuBar.add(pathMenu);
@@ -156,8 +170,16 @@ public class GraphEditorGUIView extends JFrame implements ActionListener, KeyLis
         pathMenu.add(findAStarNoHeuristicPathItem  );
         pathMenu.add(findAStarBestFirstGreedyPathItem  );
         pathMenu.add(findSimpleGreedyPathItem  );
+        pathMenu.add(findBidirectionalDijkstraPathItem  );
+        pathMenu.add(findBidirectionalAStarPathItem  );
+        pathMenu.add(findAStarLandmarksPathItem  );
+        pathMenu.add(findContractionHierarchiesPathItem  );
+        pathMenu.add(findArcFlagsPathItem  );
         pathMenu.add(new JSeparator());		
         pathMenu.add(findSpanningTreeItem);
+        pathMenu.add(nodesWithinDistanceItem);
+        pathMenu.add(kShortestPathsItem);
+        pathMenu.add(nextAlternativePathItem);
         pathMenu.add(new JSeparator());		
         pathMenu.add(hasPathItem);
 		findDijkstraPathItem.addActionListener(this);
@@ -166,7 +188,15 @@ public class GraphEditorGUIView extends JFrame implements ActionListener, KeyLis
 		findAStarNoHeuristicPathItem.addActionListener(this);
 		findAStarBestFirstGreedyPathItem.addActionListener(this);
 		findSimpleGreedyPathItem.addActionListener(this);
+		findBidirectionalDijkstraPathItem.addActionListener(this);
+		findBidirectionalAStarPathItem.addActionListener(this);
+		findAStarLandmarksPathItem.addActionListener(this);
+		findContractionHierarchiesPathItem.addActionListener(this);
+		findArcFlagsPathItem.addActionListener(this);
         findSpanningTreeItem.addActionListener(this);
+        nodesWithinDistanceItem.addActionListener(this);
+        kShortestPathsItem.addActionListener(this);
+        nextAlternativePathItem.addActionListener(this);
         hasPathItem.addActionListener(this);      
 
 
@@ -179,6 +209,11 @@ public class GraphEditorGUIView extends JFrame implements ActionListener, KeyLis
 
 	}
 	
+	//SCROLL EVENT HANDLER
+	public void stateChanged(ChangeEvent event) {
+		editor.viewportChanged();
+	}
+
 	//KEYBOARD EVENT HANDLERS
 	public void keyPressed(KeyEvent event) {
         int keyCode = event.getKeyCode();
@@ -253,6 +288,8 @@ public class GraphEditorGUIView extends JFrame implements ActionListener, KeyLis
 		  editor.depthFirstSearch();			
 	    else if (e.getSource() == breadthFirstSearchItem)
 		  editor.breadthFirstSearch();
+	    else if (e.getSource() == findNodeByLabelItem)
+		  editor.findNodeByLabel();
 		  
 		//PATH MENU ITEMS			
         else if (e.getSource() == findDijkstraPathItem )
@@ -267,8 +304,24 @@ public class GraphEditorGUIView extends JFrame implements ActionListener, KeyLis
             editor.findPath(Graph.PathFindingMethod.AStarBestFirstGreedy);
         else if (e.getSource() == findSimpleGreedyPathItem )
             editor.findPath(Graph.PathFindingMethod.GreedyBestNeighbour);
+        else if (e.getSource() == findBidirectionalDijkstraPathItem )
+            editor.findPath(Graph.PathFindingMethod.BidirectionalDijkstra);
+        else if (e.getSource() == findBidirectionalAStarPathItem )
+            editor.findPath(Graph.PathFindingMethod.BidirectionalAStar);
+        else if (e.getSource() == findAStarLandmarksPathItem )
+            editor.findPath(Graph.PathFindingMethod.AStarLandmarks);
+        else if (e.getSource() == findContractionHierarchiesPathItem )
+            editor.findPath(Graph.PathFindingMethod.ContractionHierarchies);
+        else if (e.getSource() == findArcFlagsPathItem )
+            editor.findPath(Graph.PathFindingMethod.ArcFlags);
         else if (e.getSource() == findSpanningTreeItem)
             editor.findSpanningTree();
+        else if (e.getSource() == nodesWithinDistanceItem)
+            editor.nodesWithinDistance();
+        else if (e.getSource() == kShortestPathsItem)
+            editor.kShortestPaths();
+        else if (e.getSource() == nextAlternativePathItem)
+            editor.nextAlternativePath();
         else if (e.getSource() == hasPathItem)
             editor.hasSTPath();          
             
@@ -2,6 +2,8 @@ package comp2402graphEditor;
 
 import java.io.*;
 
+import javax.xml.stream.XMLStreamException;
+
 public class GraphParser {
 	/* This class is responsible for loading graphs from data files and writing
 	 * graphs to data files The graph parser uses an XML-like encoding of graphs
@@ -37,6 +39,39 @@ public class GraphParser {
 	
 	public static String indentTab = "   "; 
 	public static Graph parseFromFile(File aFile) {
+		// Binary files (GraphBinaryFile) are recognized by their header. Other
+		// files are streamed with GraphXMLStream, which also reads the files of
+		// older versions; files it cannot read are read line by line instead
+		Graph parsedModel;
+		try {
+			if (GraphBinaryFile.hasBinaryHeader(aFile))
+				parsedModel = GraphBinaryFile.read(aFile);
+			else
+				parsedModel = GraphXMLStream.read(aFile);
+		} catch (XMLStreamException e) {
+			parsedModel = parseLinesFromFile(aFile);
+		} catch (IOException e) {
+			System.out.println("VERSION PARSE Error: Cannot read from file. " + e.getMessage());
+			return null;
+		}
+
+		if (parsedModel == null) {
+			System.out.println("ERROR: Graph: Parsed graph not created");
+			return null;
+		}
+		// reuse landmark tables saved with the graph, if they still match it
+		// (the snapshot they are checked against is only built when there are some)
+		File landmarkFile = Landmarks.fileFor(aFile);
+		if (landmarkFile.exists()) {
+			Landmarks savedLandmarks = Landmarks.readFromFile(landmarkFile, parsedModel.snapshot());
+			if (savedLandmarks != null)
+				parsedModel.setLandmarks(savedLandmarks);
+		}
+		return parsedModel;
+	}
+
+	// Parse a graph file line by line, one tag per line
+	public static Graph parseLinesFromFile(File aFile) {
 		Graph parsedModel = new Graph();
 
 		String inputLine; 
@@ -64,50 +99,33 @@ public class GraphParser {
 			System.out.println("VERSION PARSE Error: Cannot read from file.");
 			return null;
 		}
-
-		if (parsedModel == null) {
-			System.out.println("ERROR: Graph: Parsed graph not created");
-		}
 		return parsedModel;
 	}
 
 	public static void writeToFile(Graph graph, File aFile, String imageFileName,
 			 int imageWidth, int imageHeight) {
-		
-		PrintWriter outputFile = null;
+		// files named or already written as binary graph files are written by
+		// GraphBinaryFile, all others are streamed out as XML by GraphXMLStream
 		try {
-			outputFile = new PrintWriter(new FileWriter(aFile));
-
-			String warningString1 = "WARNING: This file was produced by its parent application:";
-			String warningString3 = "and is not meant to be edited manually.  Doing so will likely";
-			String warningString4 = "make it unreadable. The file format is not an open standard";
-			String warningString5 = "and is subject to change without notice";
-
-			outputFile.println(XMLDocumentTag);
-
-			String output = XMLCommentTag + " " + warningString1 + " " + XMLCommentEndTag;
-			outputFile.println(output);
-			output = XMLCommentTag + " " + warningString3 + " " + XMLCommentEndTag;
-			outputFile.println(output);
-			output = XMLCommentTag + " " + warningString4 + " " + XMLCommentEndTag;
-			outputFile.println(output);
-			output = XMLCommentTag + " " + warningString5 + " " + XMLCommentEndTag;
-			outputFile.println(output);
-
-			outputFile.println(XMLStartTag);
-
 			if (imageFileName != null && imageWidth > 0
 					&& imageHeight > 0)
 				graph.setBackgroundImageInfo(imageFileName,
 						imageWidth, imageHeight);
 			
-			graph.writeToFile(indentTab, outputFile);
-			outputFile.println(XMLEndTag);
-			outputFile.close();
+			if (GraphBinaryFile.isBinaryFile(aFile))
+				GraphBinaryFile.write(graph, aFile);
+			else
+				GraphXMLStream.write(graph, aFile);
+
+			// save landmark tables next to the graph so they need not be recomputed
+			if (graph.hasLandmarks())
+				graph.landmarks().writeToFile(Landmarks.fileFor(aFile));
 		} catch (FileNotFoundException e) {
-			System.out.println("Error: Cannot open file" + outputFile);
+			System.out.println("Error: Cannot open file" + aFile);
 		} catch (IOException e) {
-			System.out.println("Error: Cannot write to file: " + outputFile);
+			System.out.println("Error: Cannot write to file: " + aFile);
+		} catch (XMLStreamException e) {
+			System.out.println("Error: Cannot write to file: " + aFile + " " + e.getMessage());
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,419 @@
+package comp2402graphEditor;
+
+import java.util.concurrent.RecursiveAction;
+
+import comp2402graphEditor.Graph.PathFindingMethod;
+
+public class GraphSearch {
+	// The search algorithms behind Graph's path finding and traversal methods.
+	// They only read a ReadOnlyGraph (a GraphSnapshot, or an OffHeapGraphStore for
+	// graphs kept out of the heap) and keep every bit of per-query state in the
+	// SearchContext they are given, so they never modify the Graph, its nodes or
+	// its edges. Graph decides afterwards whether to show a result in the editor.
+
+	// Priority of node v in the frontier for the given method.
+	// distance is the best known distance from the source to v
+	private static double frontierPriority(PathFindingMethod theMethod, ReadOnlyGraph g, Landmarks landmarks,
+			int v, int target, double distance, SearchContext context) {
+		if (theMethod == PathFindingMethod.AStarBestFirstGreedy)
+			return heuristic(theMethod, g, landmarks, v, target, context);
+		if (theMethod == PathFindingMethod.AStarLandmarks || theMethod == PathFindingMethod.AStarLowerBound
+				|| theMethod == PathFindingMethod.AStarManhattan)
+			return distance + heuristic(theMethod, g, landmarks, v, target, context);
+		return distance; // Dijkstra and AStarZeroCostHeuristic
+	}
+
+	// Estimated distance from v to the target, computed once per node and search
+	// (a node is offered again every time its distance decreases)
+	private static double heuristic(PathFindingMethod theMethod, ReadOnlyGraph g, Landmarks landmarks,
+			int v, int target, SearchContext context) {
+		if (context.hasHeuristic(v))
+			return context.heuristic(v);
+		double h;
+		if (theMethod == PathFindingMethod.AStarLandmarks)
+			h = landmarks.lowerBound(v, target);
+		else if (theMethod == PathFindingMethod.AStarManhattan)
+			h = Math.abs(g.x(v) - g.x(target)) + Math.abs(g.y(v) - g.y(target));
+		else if (theMethod == PathFindingMethod.AStarLowerBound)
+			h = g.lowerBound(v, target); // assigned weights can be below the straight line length
+		else
+			h = g.distanceBetween(v, target); // AStarBestFirstGreedy
+		context.setHeuristic(v, h);
+		return h;
+	}
+
+	public static PathResult bestFirstSearch(ReadOnlyGraph g, int source, int target, PathFindingMethod theMethod,
+			SearchContext context) {
+		return bestFirstSearch(g, source, target, theMethod, null, context);
+	}
+
+	public static PathResult bestFirstSearch(ReadOnlyGraph g, int source, int target, PathFindingMethod theMethod,
+			Landmarks landmarks, SearchContext context) {
+		// Best first search shared by Dijkstra and the A* variants
+		// (landmarks are only needed for AStarLandmarks).
+		// The frontier is an indexed heap keyed by node index so each node is
+		// queued at most once, and finding a shorter distance to a queued node
+		// is a decrease-key: O((V+E) log V) per query
+		context.reset(g.nodeCount());
+		IndexedMinHeap frontier = context.frontier;
+
+		context.setDistance(source, 0.0, -1);
+		frontier.offer(source, frontierPriority(theMethod, g, landmarks, source, target, 0.0, context));
+
+		while (!frontier.isEmpty()) {
+			int currentNode = frontier.poll();
+			if (currentNode == target)
+				return pathTo(g, theMethod, source, target, true, context);
+			context.setVisited(currentNode);
+			context.settledCount++;
+			double currentDistance = context.distanceTo(currentNode);
+
+			for (int arc = g.firstArc(currentNode); arc < g.firstArc(currentNode + 1); arc++) {
+				int neighbour = g.arcHead(arc);
+				if (!context.isVisited(neighbour)) {
+					// set distance if it is greater then where we have come
+					double d = currentDistance + g.arcWeight(arc);
+					if (context.distanceTo(neighbour) > d) {
+						context.setDistance(neighbour, d, g.arcEdge(arc));
+						frontier.offer(neighbour, frontierPriority(theMethod, g, landmarks, neighbour, target, d, context));
+					}
+				}
+			}
+		}
+		return pathTo(g, theMethod, source, target, false, context); // target not reachable
+	}
+
+	public static void shortestPathTree(ReadOnlyGraph g, int source, double maxDistance, SearchContext context) {
+		// Dijkstra from source without a target: afterwards the context holds the
+		// distance and tree edge of every node within maxDistance of the source
+		// (pass Graph.infinity() for the whole component). Nodes are settled in
+		// order of distance and the search stops once the next one is too far.
+		// The settled nodes are left in context.stack in the order they were settled.
+		context.reset(g.nodeCount());
+		IndexedMinHeap frontier = context.frontier;
+		context.setDistance(source, 0.0, -1);
+		frontier.offer(source, 0.0);
+
+		while (!frontier.isEmpty()) {
+			if (frontier.peekKey() > maxDistance)
+				break;
+			int currentNode = frontier.poll();
+			context.setVisited(currentNode);
+			context.stack[context.settledCount++] = currentNode;
+			double currentDistance = context.distanceTo(currentNode);
+
+			for (int arc = g.firstArc(currentNode); arc < g.firstArc(currentNode + 1); arc++) {
+				int neighbour = g.arcHead(arc);
+				double d = currentDistance + g.arcWeight(arc);
+				if (!context.isVisited(neighbour) && context.distanceTo(neighbour) > d) {
+					context.setDistance(neighbour, d, g.arcEdge(arc));
+					frontier.offer(neighbour, d);
+				}
+			}
+		}
+	}
+
+	public static RangeResult range(ReadOnlyGraph g, int source, double maxDistance, SearchContext context) {
+		// All nodes within maxDistance of source: a shortest path tree that stops
+		// expanding at maxDistance. Nodes are settled in order of distance, so the
+		// settled nodes are exactly the ones in range, already sorted
+		shortestPathTree(g, source, maxDistance, context);
+		int count = context.getSettledCount();
+		int[] nodeIds = new int[count];
+		double[] distances = new double[count];
+		int[] treeEdges = new int[count];
+		for (int i = 0; i < count; i++) {
+			int v = context.stack[i]; // settle order
+			nodeIds[i] = v;
+			distances[i] = context.distanceTo(v);
+			treeEdges[i] = context.previousEdge(v);
+		}
+		return new RangeResult(g, source, maxDistance, nodeIds, distances, treeEdges);
+	}
+
+	// Range queries around many sources at once, spread over the shared
+	// ForkJoinPool with one search context per worker
+	public static RangeResult[] ranges(ReadOnlyGraph g, int[] sources, double maxDistance,
+			ThreadLocal<SearchContext> contexts) {
+		RangeResult[] results = new RangeResult[sources.length];
+		PathBatch.pool(0).invoke(new RangeTask(g, sources, maxDistance, contexts, results, 0, sources.length));
+		return results;
+	}
+
+	private static class RangeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final ReadOnlyGraph g;
+		private final int[] sources;
+		private final double maxDistance;
+		private final ThreadLocal<SearchContext> contexts;
+		private final RangeResult[] results;
+		private final int from, to;
+
+		RangeTask(ReadOnlyGraph g, int[] sources, double maxDistance, ThreadLocal<SearchContext> contexts,
+				RangeResult[] results, int from, int to) {
+			this.g = g;
+			this.sources = sources;
+			this.maxDistance = maxDistance;
+			this.contexts = contexts;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RangeTask(g, sources, maxDistance, contexts, results, from, middle),
+						new RangeTask(g, sources, maxDistance, contexts, results, middle, to));
+				return;
+			}
+			if (to > from)
+				results[from] = range(g, sources[from], maxDistance, contexts.get());
+		}
+	}
+
+	public static PathResult bidirectionalSearch(ReadOnlyGraph g, int source, int target, boolean useAStar,
+			SearchContext context) {
+		// Bidirectional Dijkstra or A*: a forward search from the source and a
+		// backward search from the target (the graph is undirected, so both use
+		// the same arcs) take turns until they meet in the middle.
+		// mu is the length of the best source-target path seen so far; it is
+		// updated whenever a node gets a distance from both sides.
+		//
+		// For A* both searches use the average potential
+		// p(v) = (lowerBound(v, target) - lowerBound(v, source)) / 2 (forward) and
+		// -p(v) (backward), which keeps both consistent. With those potentials
+		// (or none, for Dijkstra) it is correct to stop as soon as the smallest
+		// forward key plus the smallest backward key reaches mu.
+		PathFindingMethod theMethod = useAStar ? PathFindingMethod.BidirectionalAStar
+				: PathFindingMethod.BidirectionalDijkstra;
+		SearchContext forward = context;
+		SearchContext backward = context.reverse();
+		forward.reset(g.nodeCount());
+		backward.reset(g.nodeCount());
+
+		forward.setDistance(source, 0.0, -1);
+		forward.frontier.offer(source, potential(g, source, source, target, useAStar, forward));
+		backward.setDistance(target, 0.0, -1);
+		backward.frontier.offer(target, -potential(g, target, source, target, useAStar, backward));
+
+		double mu = source == target ? 0.0 : Graph.infinity();
+		int meetingNode = source == target ? source : -1;
+
+		while (!forward.frontier.isEmpty() && !backward.frontier.isEmpty()) {
+			if (forward.frontier.peekKey() + backward.frontier.peekKey() >= mu)
+				break; // no shorter path can be found
+			// expand the side with the smaller frontier
+			boolean expandForward = forward.frontier.size() <= backward.frontier.size();
+			SearchContext side = expandForward ? forward : backward;
+			SearchContext otherSide = expandForward ? backward : forward;
+			double sign = expandForward ? 1.0 : -1.0;
+
+			int currentNode = side.frontier.poll();
+			side.setVisited(currentNode);
+			side.settledCount++;
+			double currentDistance = side.distanceTo(currentNode);
+
+			for (int arc = g.firstArc(currentNode); arc < g.firstArc(currentNode + 1); arc++) {
+				int neighbour = g.arcHead(arc);
+				if (side.isVisited(neighbour))
+					continue;
+				double d = currentDistance + g.arcWeight(arc);
+				if (side.distanceTo(neighbour) > d) {
+					side.setDistance(neighbour, d, g.arcEdge(arc));
+					side.frontier.offer(neighbour, d + sign * potential(g, neighbour, source, target, useAStar, side));
+					if (otherSide.isReached(neighbour) && d + otherSide.distanceTo(neighbour) < mu) {
+						mu = d + otherSide.distanceTo(neighbour);
+						meetingNode = neighbour;
+					}
+				}
+			}
+		}
+		context.settledCount = forward.settledCount + backward.settledCount;
+		if (meetingNode < 0)
+			return new PathResult(g, theMethod, source, target, false, Graph.infinity(), new int[0],
+					context.settledCount);
+
+		// join the forward path to the meeting node with the backward path from it
+		IntList pathEdges = new IntList();
+		for (int v = meetingNode; v != source; v = otherEnd(g, forward.previousEdge(v), v))
+			pathEdges.add(forward.previousEdge(v));
+		int[] edgeIds = new int[pathEdges.size()];
+		for (int i = 0; i < edgeIds.length; i++)
+			edgeIds[i] = pathEdges.get(edgeIds.length - 1 - i);
+		pathEdges.clear();
+		for (int v = meetingNode; v != target; v = otherEnd(g, backward.previousEdge(v), v))
+			pathEdges.add(backward.previousEdge(v));
+
+		int[] allEdges = new int[edgeIds.length + pathEdges.size()];
+		System.arraycopy(edgeIds, 0, allEdges, 0, edgeIds.length);
+		for (int i = 0; i < pathEdges.size(); i++)
+			allEdges[edgeIds.length + i] = pathEdges.get(i);
+		return new PathResult(g, theMethod, source, target, true, mu, allEdges, context.settledCount);
+	}
+
+	// forward potential of v used by bidirectional A*, 0 for bidirectional Dijkstra;
+	// memoized in the context of the side that asks for it
+	private static double potential(ReadOnlyGraph g, int v, int source, int target, boolean useAStar,
+			SearchContext side) {
+		if (!useAStar)
+			return 0.0;
+		if (!side.hasHeuristic(v))
+			side.setHeuristic(v, (g.lowerBound(v, target) - g.lowerBound(v, source)) / 2.0);
+		return side.heuristic(v);
+	}
+
+	public static PathResult greedyBestNeighbour(ReadOnlyGraph g, int source, int target, SearchContext context) {
+		// For illustration this method finds a path using an "As the crow flies"
+		// greedy heuristic. It simply chooses the next unvisited neighbour which
+		// is "as the crow flies" closest to the target. Because of this simple
+		// greedy behaviour without backtracking, it can dead end and get stuck
+		// with nowhere to go; the partial path is then reported as not found.
+		context.reset(g.nodeCount());
+		int currentNode = source;
+		context.setDistance(source, 0.0, -1);
+		context.setVisited(source);
+
+		while (currentNode != target) {
+			int nextCandidate = -1;
+			int nextArc = -1;
+			double distance = Graph.infinity();
+			for (int arc = g.firstArc(currentNode); arc < g.firstArc(currentNode + 1); arc++) {
+				// find neighbour which is unvisited and "as the crow flies"
+				// closest to target
+				int n = g.arcHead(arc);
+				if (!context.isReached(n)) // examined
+					context.setDistance(n, context.distanceTo(currentNode) + g.arcWeight(arc), -1);
+				if (!context.isVisited(n) && g.distanceBetween(n, target) < distance) {
+					distance = g.distanceBetween(n, target);
+					nextCandidate = n;
+					nextArc = arc;
+				}
+			}
+			if (nextCandidate < 0)
+				return pathTo(g, PathFindingMethod.GreedyBestNeighbour, source, currentNode, false, context);
+
+			context.setDistance(nextCandidate, context.distanceTo(currentNode) + g.arcWeight(nextArc),
+					g.arcEdge(nextArc));
+			context.setVisited(nextCandidate);
+			context.settledCount++;
+			currentNode = nextCandidate;
+		}
+		return pathTo(g, PathFindingMethod.GreedyBestNeighbour, source, target, true, context);
+	}
+
+	// Retrace the path to target using the previous edges recorded in the context
+	private static PathResult pathTo(ReadOnlyGraph g, PathFindingMethod theMethod, int source, int target,
+			boolean found, SearchContext context) {
+		if (!context.isReached(target))
+			return new PathResult(g, theMethod, source, target, false, Graph.infinity(), new int[0],
+					context.settledCount);
+		int length = 0;
+		for (int v = target; v != source; v = otherEnd(g, context.previousEdge(v), v))
+			length++;
+
+		int[] edgeIds = new int[length];
+		double distance = 0.0;
+		int v = target;
+		for (int i = length - 1; i >= 0; i--) {
+			int pathEdge = context.previousEdge(v);
+			edgeIds[i] = pathEdge;
+			distance += g.edgeWeight(pathEdge);
+			v = otherEnd(g, pathEdge, v);
+		}
+		return new PathResult(g, theMethod, source, target, found, distance, edgeIds, context.settledCount);
+	}
+
+	static int otherEnd(ReadOnlyGraph g, int edge, int v) {
+		return g.edgeStart(edge) == v ? g.edgeEnd(edge) : g.edgeStart(edge);
+	}
+
+	public static TraversalResult depthFirstSearch(ReadOnlyGraph g, int source, int stopAt, SearchContext context) {
+		// Depth first search from source, recording nodes in the order they are
+		// first seen with their depth. Nodes are visited in the same order as the
+		// recursive definition but with an explicit stack so deep graphs cannot
+		// overflow the call stack. Stops without recording it when stopAt is
+		// reached (pass -1 to search the whole component).
+		context.reset(g.nodeCount());
+		IntList order = new IntList();
+		IntList level = new IntList();
+		IntList treeEdges = new IntList();
+		IntList nonTreeEdges = new IntList();
+		int[] stack = context.stack;
+		int[] arcCursor = context.arcCursor;
+
+		if (source == stopAt) {
+			context.setVisited(source);
+			return new TraversalResult(g, order, level, treeEdges, nonTreeEdges);
+		}
+
+		int depth = 0;
+		stack[0] = source;
+		arcCursor[0] = g.firstArc(source);
+		context.setVisited(source);
+		order.add(source);
+		level.add(0);
+
+		while (depth >= 0) {
+			int v = stack[depth];
+			if (arcCursor[depth] == g.firstArc(v + 1)) {
+				depth--; // all neighbours done, backtrack
+				continue;
+			}
+			int arc = arcCursor[depth]++;
+			int neighbour = g.arcHead(arc);
+			if (context.isVisited(neighbour)) {
+				nonTreeEdges.add(g.arcEdge(arc));
+				continue;
+			}
+			context.setVisited(neighbour);
+			treeEdges.add(g.arcEdge(arc));
+			if (neighbour == stopAt)
+				break;
+			order.add(neighbour);
+			level.add(depth + 1);
+			depth++;
+			stack[depth] = neighbour;
+			arcCursor[depth] = g.firstArc(neighbour);
+		}
+		context.settledCount = order.size();
+		return new TraversalResult(g, order, level, treeEdges, nonTreeEdges);
+	}
+
+	public static TraversalResult breadthFirstSearch(ReadOnlyGraph g, int source, SearchContext context) {
+		// Breadth first search from source, recording nodes level by level
+		context.reset(g.nodeCount());
+		IntList order = new IntList();
+		IntList level = new IntList();
+		IntList treeEdges = new IntList();
+		IntList nonTreeEdges = new IntList();
+
+		// the queue holds one level after another; levelEnd marks where the
+		// level currently being expanded stops
+		int[] queue = context.stack;
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = source;
+		context.setVisited(source);
+
+		for (int level_counter = 0; head < tail; level_counter++) {
+			int levelEnd = tail;
+			for (; head < levelEnd; head++) {
+				int v = queue[head];
+				order.add(v);
+				level.add(level_counter);
+				for (int arc = g.firstArc(v); arc < g.firstArc(v + 1); arc++) {
+					int neighbour = g.arcHead(arc);
+					if (!context.isVisited(neighbour)) {
+						queue[tail++] = neighbour;
+						context.setVisited(neighbour);
+						treeEdges.add(g.arcEdge(arc));
+					} else
+						nonTreeEdges.add(g.arcEdge(arc));
+				}
+			}
+		}
+		context.settledCount = order.size();
+		return new TraversalResult(g, order, level, treeEdges, nonTreeEdges);
+	}
+}
@@ -0,0 +1,142 @@
+package comp2402graphEditor;
+
+import java.util.ArrayList;
+
+public class GraphSnapshot implements ReadOnlyGraph {
+	// A frozen, read-only copy of a Graph in compressed sparse row (CSR) form.
+	// Node v is identified by its index in the graph's node list and edge e by its
+	// index in the edge list. The arcs leaving node v are firstArc[v] .. firstArc[v+1]-1;
+	// every undirected edge appears as one arc in each direction.
+	// Algorithms walk these arrays instead of Node.neighbours() and Graph.edgeBetween()
+	// so a search step allocates nothing and never rescans an adjacency list.
+	// A Graph hands out the same snapshot until its topology or geometry changes.
+
+	final Node[] nodes; // node objects by index, used to report results
+	final Edge[] edges; // edge objects by index, used to report results
+
+	final int[] firstArc; // arcs of node v are firstArc[v] .. firstArc[v+1]-1
+	final int[] arcHead; // node at the far end of each arc
+	final int[] arcEdge; // edge index of each arc
+
+	final int[] edgeStart; // start node index of each edge
+	final int[] edgeEnd; // end node index of each edge
+
+	// geometry: everything below is refreshed when nodes move or weights change
+	final double[] arcWeight; // weight of each arc (same as its edge)
+	final double[] edgeWeight; // weight of each edge
+	final int[] x; // x coordinate of each node
+	final int[] y; // y coordinate of each node
+	double lowerBoundScale; // largest factor with factor * straight line length <= weight for every edge
+
+	GraphSnapshot(ArrayList<Node> nodeList, ArrayList<Edge> edgeList) {
+		int n = nodeList.size();
+		int m = edgeList.size();
+		nodes = nodeList.toArray(new Node[n]);
+		edges = edgeList.toArray(new Edge[m]);
+
+		edgeStart = new int[m];
+		edgeEnd = new int[m];
+		for (int e = 0; e < m; e++) {
+			edgeStart[e] = edges[e].getStartNode().getIndex();
+			edgeEnd[e] = edges[e].getEndNode().getIndex();
+		}
+
+		// lay the arcs out node by node in incident edge order
+		firstArc = new int[n + 1];
+		for (int v = 0; v < n; v++)
+			firstArc[v + 1] = firstArc[v] + nodes[v].incidentEdges().size();
+		arcHead = new int[firstArc[n]];
+		arcEdge = new int[firstArc[n]];
+		for (int v = 0; v < n; v++) {
+			int arc = firstArc[v];
+			for (Edge anEdge : nodes[v].incidentEdges()) {
+				arcHead[arc] = anEdge.otherNode(nodes[v]).getIndex();
+				arcEdge[arc] = anEdge.getIndex();
+				arc++;
+			}
+		}
+
+		x = new int[n];
+		y = new int[n];
+		edgeWeight = new double[m];
+		arcWeight = new double[arcHead.length];
+		loadGeometry();
+	}
+
+	private GraphSnapshot(GraphSnapshot topology) {
+		// share the topology arrays of an existing snapshot, re-read the geometry
+		nodes = topology.nodes;
+		edges = topology.edges;
+		firstArc = topology.firstArc;
+		arcHead = topology.arcHead;
+		arcEdge = topology.arcEdge;
+		edgeStart = topology.edgeStart;
+		edgeEnd = topology.edgeEnd;
+
+		x = new int[nodes.length];
+		y = new int[nodes.length];
+		edgeWeight = new double[edges.length];
+		arcWeight = new double[arcHead.length];
+		loadGeometry();
+	}
+
+	private void loadGeometry() {
+		for (int v = 0; v < nodes.length; v++) {
+			x[v] = nodes[v].getX();
+			y[v] = nodes[v].getY();
+		}
+		for (int e = 0; e < edges.length; e++)
+			edgeWeight[e] = edges[e].getWeight();
+		for (int arc = 0; arc < arcEdge.length; arc++)
+			arcWeight[arc] = edgeWeight[arcEdge[arc]];
+
+		// weights are whole numbers and may be set by the user, so the straight
+		// line distance is only a true lower bound once scaled down by this factor
+		lowerBoundScale = 1.0;
+		for (int e = 0; e < edges.length; e++) {
+			double length = distanceBetween(edgeStart[e], edgeEnd[e]);
+			if (length > 0)
+				lowerBoundScale = Math.min(lowerBoundScale, Math.max(edgeWeight[e], 0.0) / length);
+		}
+	}
+
+	// Answer a snapshot with the same topology but current coordinates and weights.
+	// Used when nodes have moved but no node or edge was added or removed.
+	GraphSnapshot withCurrentGeometry() {
+		return new GraphSnapshot(this);
+	}
+
+	public int nodeCount() {return nodes.length;}
+	public int edgeCount() {return edges.length;}
+	public int arcCount() {return arcHead.length;}
+
+	// the Node and Edge objects behind the indices, used to show results
+	public Node node(int v) {return nodes[v];}
+	public Edge edge(int e) {return edges[e];}
+
+	public int firstArc(int v) {return firstArc[v];}
+	public int arcHead(int arc) {return arcHead[arc];}
+	public int arcEdge(int arc) {return arcEdge[arc];}
+	public double arcWeight(int arc) {return arcWeight[arc];}
+
+	public int edgeStart(int e) {return edgeStart[e];}
+	public int edgeEnd(int e) {return edgeEnd[e];}
+	public double edgeWeight(int e) {return edgeWeight[e];}
+
+	public int x(int v) {return x[v];}
+	public int y(int v) {return y[v];}
+
+	// a straight line distance estimate that never exceeds the weight of the
+	// shortest path between u and v and never drops by more than an edge's weight
+	// along that edge (admissible and consistent)
+	public double lowerBound(int u, int v) {
+		return lowerBoundScale * distanceBetween(u, v);
+	}
+
+	// straight line distance between nodes u and v
+	public double distanceBetween(int u, int v) {
+		double dx = x[u] - x[v];
+		double dy = y[u] - y[v];
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+}
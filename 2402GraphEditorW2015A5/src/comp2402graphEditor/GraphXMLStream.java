@@ -0,0 +1,562 @@
+package comp2402graphEditor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+public class GraphXMLStream {
+	// Streaming reader and writer for the graph files of GraphParser, using
+	// javax.xml.stream. The elements are the ones the line based parser uses
+	// (graphXML, graph, node, edge and their properties), but any layout of
+	// whitespace and line breaks is accepted. The file is read one event at a
+	// time, so apart from the graph being built only the current element's text
+	// is held. Writing goes through a buffered stream writer that escapes label
+	// text; numbers are formatted into one reused char buffer.
+	// Files from older versions have no XML declaration and repeat the <edge>
+	// start tag; they are read through RepeatedEdgeTagFilter, so they too are
+	// parsed once. Files that are still not well-formed are rejected with an
+	// XMLStreamException and GraphParser reads them line by line.
+
+	private static final String graphXMLName = name(GraphParser.XMLStartTag);
+	private static final String graphName = name(Graph.startTag);
+	private static final String imageName = name(Graph.XMLBackgroundImageStartTag);
+	private static final String fileNameName = name(Graph.XMLFileNameStartTag);
+	private static final String dimensionsName = name(Graph.XMLDimensionsStartTag);
+	private static final String nodeName = name(Node.startTag);
+	private static final String edgeName = name(Edge.startTag);
+	private static final String labelName = name(Node.labelTag);
+	private static final String locationName = name(Node.locationTag);
+	private static final String weightName = name(Node.weightTag);
+	private static final String startLocationName = name(Edge.startNodeLocationTag);
+	private static final String endLocationName = name(Edge.endNodeLocationTag);
+	private static final String selectedName = name(Node.selectedTag);
+	private static final String markedName = name(Node.markedTag);
+	private static final String edgeWeightsName = name(Graph.XMLEdgeWeightsTag);
+
+	private static final byte[] xmlDeclarationStart = { '<', '?', 'x', 'm', 'l' };
+
+	private static final String[] warnings = {
+			"WARNING: This file was produced by its parent application:",
+			"and is not meant to be edited manually.  Doing so will likely",
+			"make it unreadable. The file format is not an open standard",
+			"and is subject to change without notice" };
+
+	// element name of a tag: <node> and <selected/> give node and selected
+	private static String name(String tag) {
+		return tag.substring(1, tag.length() - (tag.endsWith("/>") ? 2 : 1));
+	}
+
+	// READING
+
+	public static Graph read(File aFile) throws IOException, XMLStreamException {
+		InputStream input = new BufferedInputStream(new FileInputStream(aFile), 1 << 16);
+		try {
+			return read(input);
+		} finally {
+			input.close();
+		}
+	}
+
+	public static Graph read(InputStream input) throws IOException, XMLStreamException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false); // the files use none
+		XMLStreamReader reader;
+		if (!input.markSupported())
+			input = new BufferedInputStream(input);
+		if (hasXMLDeclaration(input))
+			reader = factory.createXMLStreamReader(input);
+		else
+			reader = factory.createXMLStreamReader(new RepeatedEdgeTagFilter(input));
+
+		Graph aGraph = new Graph();
+		NodesByLocation nodesByLocation = new NodesByLocation();
+		ArrayList<Edge> parsedEdges = new ArrayList<Edge>();
+		int[] numbers = new int[2]; // the numbers of the element being read
+		boolean inGraph = false;
+		boolean hasEdgeWeights = false; // see Graph.XMLEdgeWeightsTag
+		try {
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals(graphName))
+					break; // anything after the graph is not looked at
+				if (event != XMLStreamConstants.START_ELEMENT)
+					continue;
+				String name = reader.getLocalName();
+				if (name.equals(graphName))
+					inGraph = true;
+				else if (!inGraph)
+					continue; // graphXML and comments around the graph
+				else if (name.equals(nodeName)) {
+					Node aNode = readNode(reader, numbers);
+					aGraph.addNode(aNode);
+					nodesByLocation.add(aNode);
+				} else if (name.equals(edgeName)) {
+					Edge anEdge = readEdge(reader, nodesByLocation, numbers);
+					if (anEdge.getStartNode() == null || anEdge.getEndNode() == null)
+						System.out.println("ERROR: Edge end is not at a node location, edge ignored");
+					else
+						parsedEdges.add(anEdge);
+				} else if (name.equals(edgeWeightsName)) {
+					hasEdgeWeights = true;
+					skipElement(reader);
+				} else
+					skipElement(reader); // the background image is not read back, as before
+			}
+		} finally {
+			reader.close();
+		}
+		if (!inGraph)
+			throw new XMLStreamException("no " + Graph.startTag + " element");
+		if (!hasEdgeWeights)
+			for (Edge anEdge : parsedEdges)
+				if (anEdge.hasAssignedWeight())
+					anEdge.clearWeight();
+		aGraph.addEdges(parsedEdges);
+		return aGraph;
+	}
+
+	// true if the input starts with an XML declaration, as files written by
+	// this class do; the input is left where it was
+	private static boolean hasXMLDeclaration(InputStream input) throws IOException {
+		byte[] start = new byte[xmlDeclarationStart.length];
+		input.mark(start.length);
+		int length = 0;
+		for (int n; length < start.length && (n = input.read(start, length, start.length - length)) > 0; )
+			length += n;
+		input.reset();
+		return Arrays.equals(start, xmlDeclarationStart);
+	}
+
+	// read the properties of a node up to its end tag
+	private static Node readNode(XMLStreamReader reader, int[] numbers) throws XMLStreamException {
+		Node aNode = new Node();
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			String name = reader.getLocalName();
+			if (name.equals(selectedName)) {
+				aNode.setSelected(true);
+				skipElement(reader);
+			} else if (name.equals(markedName)) {
+				aNode.setMarked(true);
+				skipElement(reader);
+			} else if (name.equals(labelName))
+				aNode.setLabel(reader.getElementText().trim());
+			else if (name.equals(weightName))
+				aNode.setWeight(readNumbers(reader, numbers, 1)[0]);
+			else if (name.equals(locationName)) {
+				readNumbers(reader, numbers, 2);
+				aNode.setLocation(numbers[0], numbers[1]);
+			} else
+				skipElement(reader);
+		}
+		return aNode;
+	}
+
+	// read the properties of an edge up to its end tag; its ends are the nodes
+	// at its end locations, null if there are none
+	private static Edge readEdge(XMLStreamReader reader, NodesByLocation nodesByLocation, int[] numbers)
+			throws XMLStreamException {
+		Edge anEdge = new Edge(null, null);
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			String name = reader.getLocalName();
+			if (name.equals(selectedName)) {
+				anEdge.setSelected(true);
+				skipElement(reader);
+			} else if (name.equals(markedName)) {
+				anEdge.setMarked(true);
+				skipElement(reader);
+			} else if (name.equals(labelName))
+				anEdge.setLabel(reader.getElementText().trim());
+			else if (name.equals(weightName))
+				anEdge.setWeight(readNumbers(reader, numbers, 1)[0]);
+			else if (name.equals(startLocationName) || name.equals(endLocationName)) {
+				readNumbers(reader, numbers, 2);
+				Node aNode = nodesByLocation.get(numbers[0], numbers[1]);
+				if (name.equals(startLocationName))
+					anEdge.setStartNode(aNode);
+				else
+					anEdge.setEndNode(aNode);
+			} else
+				skipElement(reader);
+		}
+		return anEdge;
+	}
+
+	// Read the text of the current element up to its end tag as count numbers
+	// separated by commas ("x,y" for a location) into values. With coalescing
+	// on the text is one event, so the digits are parsed where the reader
+	// holds them and no String is made; as with Integer.parseInt of the
+	// trimmed text, a sign is allowed and anything else is an error.
+	private static int[] readNumbers(XMLStreamReader reader, int[] values, int count)
+			throws XMLStreamException {
+		if (reader.next() != XMLStreamConstants.CHARACTERS)
+			throw new XMLStreamException("no number in <" + reader.getLocalName() + ">", reader.getLocation());
+		char[] text = reader.getTextCharacters();
+		int i = reader.getTextStart();
+		int end = i + reader.getTextLength();
+		for (int k = 0; k < count; k++) {
+			while (i < end && text[i] <= ' ')
+				i++;
+			if (k > 0 && (i == end || text[i++] != ','))
+				throw notNumbers(text, reader);
+			while (i < end && text[i] <= ' ')
+				i++;
+			boolean negative = i < end && text[i] == '-';
+			if (i < end && (text[i] == '-' || text[i] == '+'))
+				i++;
+			int start = i;
+			long value = 0;
+			while (i < end && text[i] >= '0' && text[i] <= '9' && value <= Integer.MAX_VALUE)
+				value = value * 10 + (text[i++] - '0');
+			if (negative)
+				value = -value;
+			if (i == start || value > Integer.MAX_VALUE || value < Integer.MIN_VALUE)
+				throw notNumbers(text, reader);
+			values[k] = (int) value;
+		}
+		while (i < end && text[i] <= ' ')
+			i++;
+		if (i < end)
+			throw notNumbers(text, reader);
+		if (reader.next() != XMLStreamConstants.END_ELEMENT)
+			throw new XMLStreamException("more than text in an element", reader.getLocation());
+		return values;
+	}
+
+	private static XMLStreamException notNumbers(char[] text, XMLStreamReader reader) {
+		return new XMLStreamException("not a number: "
+				+ new String(text, reader.getTextStart(), reader.getTextLength()).trim(), reader.getLocation());
+	}
+
+	// skip the rest of the current element, including anything nested in it
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		for (int depth = 1; depth > 0; ) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+				depth++;
+			else if (event == XMLStreamConstants.END_ELEMENT)
+				depth--;
+		}
+	}
+
+	// Older versions wrote each edge as <edge> <edge> ... </edge>, which no XML
+	// parser accepts. This filter drops an <edge> start tag that comes right
+	// after another one, with no other tag between them, while the file is
+	// read, so the rest of it goes to the XML parser unchanged. It works on the
+	// bytes, which the XML parser then decodes as UTF-8 (older files have no
+	// declaration); a byte of '<' is never part of another character in UTF-8.
+	private static class RepeatedEdgeTagFilter extends InputStream {
+		private static final byte[] edgeTag = Edge.startTag.getBytes(StandardCharsets.US_ASCII);
+		private final InputStream in;
+		private final byte[] buffer = new byte[1 << 16];
+		private int position = 0;
+		private int limit = 0;
+		private boolean afterEdgeTag = false; // the last tag passed on was <edge>
+
+		RepeatedEdgeTagFilter(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] one = new byte[1];
+			return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			int n = 0;
+			while (n < length && (position < limit || fill(1))) {
+				// pass on the text up to the next tag in one copy
+				int end = Math.min(limit, position + length - n);
+				byte[] text = buffer;
+				int tagStart = position;
+				while (tagStart < end && text[tagStart] != '<')
+					tagStart++;
+				System.arraycopy(text, position, bytes, offset + n, tagStart - position);
+				n += tagStart - position;
+				position = tagStart;
+				if (tagStart == end)
+					continue;
+				boolean isEdgeTag = fill(edgeTag.length) && isEdgeTagAt(position);
+				boolean repeated = isEdgeTag && afterEdgeTag;
+				afterEdgeTag = isEdgeTag;
+				if (repeated)
+					position += edgeTag.length;
+				else
+					bytes[offset + n++] = buffer[position++];
+			}
+			return n == 0 && length > 0 ? -1 : n;
+		}
+
+		// make count bytes available from position, false if the input ends first
+		private boolean fill(int count) throws IOException {
+			if (limit - position >= count)
+				return true;
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			limit -= position;
+			position = 0;
+			while (limit < count) {
+				int n = in.read(buffer, limit, buffer.length - limit);
+				if (n < 0)
+					return false;
+				limit += n;
+			}
+			return true;
+		}
+
+		private boolean isEdgeTagAt(int start) {
+			for (int i = 0; i < edgeTag.length; i++)
+				if (buffer[start + i] != edgeTag[i])
+					return false;
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	// The nodes read so far by their location, for finding the ends of edges.
+	// Edges attach to the first node at a location, as nodeWithLocation
+	// answers. Open addressing over the keys of Graph.locationKey in a
+	// primitive long[], as in EdgeIndex, instead of a HashMap of boxed Longs
+	// whose lookups were the largest part of reading a big file.
+	private static class NodesByLocation {
+		private long[] keys = new long[1 << 10];
+		private Node[] nodes = new Node[1 << 10]; // null marks an empty slot
+		private int size = 0;
+
+		private int slotOf(long key) {
+			// the key is already scrambled, fold its halves into the table index
+			return (int) (key ^ (key >>> 32)) & (nodes.length - 1);
+		}
+
+		void add(Node aNode) {
+			if (size * 2 >= nodes.length)
+				resize(nodes.length * 2);
+			long key = Graph.locationKey(aNode.getX(), aNode.getY());
+			int slot = slotOf(key);
+			for (; nodes[slot] != null; slot = (slot + 1) & (nodes.length - 1))
+				if (keys[slot] == key)
+					return;
+			keys[slot] = key;
+			nodes[slot] = aNode;
+			size++;
+		}
+
+		Node get(int x, int y) {
+			long key = Graph.locationKey(x, y);
+			for (int slot = slotOf(key); nodes[slot] != null; slot = (slot + 1) & (nodes.length - 1))
+				if (keys[slot] == key)
+					return nodes[slot];
+			return null;
+		}
+
+		private void resize(int capacity) {
+			long[] oldKeys = keys;
+			Node[] oldNodes = nodes;
+			keys = new long[capacity];
+			nodes = new Node[capacity];
+			for (int i = 0; i < oldNodes.length; i++)
+				if (oldNodes[i] != null) {
+					int slot = slotOf(oldKeys[i]);
+					while (nodes[slot] != null)
+						slot = (slot + 1) & (capacity - 1);
+					keys[slot] = oldKeys[i];
+					nodes[slot] = oldNodes[i];
+				}
+		}
+	}
+
+	// WRITING
+
+	public static void write(Graph aGraph, File aFile) throws IOException, XMLStreamException {
+		OutputStream output = new BufferedOutputStream(new FileOutputStream(aFile), 1 << 16);
+		try {
+			write(aGraph, output);
+		} finally {
+			output.close();
+		}
+	}
+
+	public static void write(Graph aGraph, OutputStream output) throws XMLStreamException {
+		// the stream writer writes to a Writer in whole strings, to an OutputStream byte by byte
+		java.io.Writer characters;
+		try {
+			characters = new BufferedWriter(new OutputStreamWriter(output, "UTF-8"), 1 << 16);
+		} catch (UnsupportedEncodingException e) {
+			throw new XMLStreamException(e);
+		}
+		XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(characters);
+		Layout out = new Layout(writer);
+		writer.writeStartDocument("UTF-8", "1.0");
+		out.newLine();
+		for (String warning : warnings) {
+			writer.writeComment(" " + warning + " ");
+			out.newLine();
+		}
+		writer.writeStartElement(graphXMLName);
+		out.newLine();
+		writer.writeStartElement(graphName);
+		out.newLine();
+		out.emptyElement(1, edgeWeightsName);
+
+		String imageFileName = aGraph.getBackgroundImageFileName();
+		if (imageFileName != null && !imageFileName.isEmpty()) {
+			out.indent(1);
+			writer.writeStartElement(imageName);
+			out.newLine();
+			out.textElement(2, fileNameName, imageFileName);
+			out.pairElement(2, dimensionsName, aGraph.getBackgroundImageWidth(), aGraph.getBackgroundImageHeight());
+			out.indent(1);
+			writer.writeEndElement();
+			out.newLine();
+		}
+
+		for (Node aNode : aGraph.getNodes()) {
+			out.indent(1);
+			writer.writeStartElement(nodeName);
+			out.newLine();
+			if (aNode.getLabel() != null && !aNode.getLabel().isEmpty())
+				out.textElement(2, labelName, aNode.getLabel());
+			out.pairElement(2, locationName, aNode.getX(), aNode.getY());
+			if (aNode.isSelected())
+				out.emptyElement(2, selectedName);
+			if (aNode.isMarked())
+				out.emptyElement(2, markedName);
+			if (aNode.getWeight() != 0)
+				out.numberElement(2, weightName, aNode.getWeight());
+			out.indent(1);
+			writer.writeEndElement();
+			out.newLine();
+		}
+
+		for (Edge anEdge : aGraph.getEdges()) {
+			out.indent(1);
+			writer.writeStartElement(edgeName);
+			out.newLine();
+			if (anEdge.getLabel() != null && !anEdge.getLabel().isEmpty())
+				out.textElement(2, labelName, anEdge.getLabel());
+			Node start = anEdge.getStartNode(), end = anEdge.getEndNode();
+			out.pairElement(2, startLocationName, start.getX(), start.getY());
+			out.pairElement(2, endLocationName, end.getX(), end.getY());
+			if (anEdge.isSelected())
+				out.emptyElement(2, selectedName);
+			if (anEdge.isMarked())
+				out.emptyElement(2, markedName);
+			if (anEdge.hasAssignedWeight())
+				out.numberElement(2, weightName, anEdge.getWeight());
+			out.indent(1);
+			writer.writeEndElement();
+			out.newLine();
+		}
+
+		writer.writeEndElement(); // graph
+		out.newLine();
+		writer.writeEndElement(); // graphXML
+		out.newLine();
+		writer.writeEndDocument();
+		writer.flush();
+		try {
+			characters.flush();
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	// Layout and number formatting for a stream writer, one tag per line as the
+	// line based parser expects, formatting numbers into a reused buffer
+	private static class Layout {
+		private final XMLStreamWriter writer;
+		private final char[] buffer = new char[32];
+		private static final char[] newLine = {'\n'};
+		private static final char[] tabs = "            ".toCharArray();
+
+		Layout(XMLStreamWriter writer) {
+			this.writer = writer;
+		}
+
+		void newLine() throws XMLStreamException {
+			writer.writeCharacters(newLine, 0, 1);
+		}
+
+		void indent(int level) throws XMLStreamException {
+			writer.writeCharacters(tabs, 0, Math.min(tabs.length, level * GraphParser.indentTab.length()));
+		}
+
+		void textElement(int level, String name, String text) throws XMLStreamException {
+			indent(level);
+			writer.writeStartElement(name);
+			writer.writeCharacters(text);
+			writer.writeEndElement();
+			newLine();
+		}
+
+		void numberElement(int level, String name, int value) throws XMLStreamException {
+			indent(level);
+			writer.writeStartElement(name);
+			writer.writeCharacters(buffer, 0, format(value, 0));
+			writer.writeEndElement();
+			newLine();
+		}
+
+		// an element holding "a,b"
+		void pairElement(int level, String name, int a, int b) throws XMLStreamException {
+			indent(level);
+			writer.writeStartElement(name);
+			int length = format(a, 0);
+			buffer[length++] = ',';
+			length = format(b, length);
+			writer.writeCharacters(buffer, 0, length);
+			writer.writeEndElement();
+			newLine();
+		}
+
+		void emptyElement(int level, String name) throws XMLStreamException {
+			indent(level);
+			writer.writeEmptyElement(name);
+			newLine();
+		}
+
+		// write value in decimal into buffer at position start; answer the end position
+		private int format(int value, int start) {
+			long v = value;
+			if (v < 0) {
+				buffer[start++] = '-';
+				v = -v;
+			}
+			int end = start;
+			do {
+				buffer[end++] = (char) ('0' + v % 10);
+				v /= 10;
+			} while (v > 0);
+			for (int i = start, j = end - 1; i < j; i++, j--) {
+				char swap = buffer[i];
+				buffer[i] = buffer[j];
+				buffer[j] = swap;
+			}
+			return end;
+		}
+	}
+}
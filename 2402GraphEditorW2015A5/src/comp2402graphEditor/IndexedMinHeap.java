@@ -0,0 +1,119 @@
+package comp2402graphEditor;
+
+import java.util.Arrays;
+
+public class IndexedMinHeap {
+	// A binary min-heap of integer items (node indices) ordered by a double key.
+	// Each item can be in the heap at most once; offering an item that is already
+	// in the heap with a smaller key performs a decrease-key instead of a second insert.
+	// Used as the frontier of the path finding algorithms.
+
+	private int[] heap; // heap[i] is the item stored at heap position i
+	private int[] position; // position[item] is where item sits in heap, -1 if absent
+	private double[] keys; // keys[item] is the current key of item
+	private int size = 0;
+
+	public IndexedMinHeap(int capacity) {
+		heap = new int[Math.max(capacity, 1)];
+		position = new int[Math.max(capacity, 1)];
+		keys = new double[Math.max(capacity, 1)];
+		Arrays.fill(position, -1);
+	}
+
+	public int size() {return size;}
+	public boolean isEmpty() {return size == 0;}
+	public int capacity() {return position.length;}
+
+	public boolean contains(int item) {
+		return position[item] >= 0;
+	}
+
+	public double keyOf(int item) {
+		return keys[item];
+	}
+
+	// answer the item with the smallest key without removing it
+	public int peek() {
+		return heap[0];
+	}
+
+	public double peekKey() {
+		return keys[heap[0]];
+	}
+
+	// Insert item with the given key, or lower its key if it is already queued.
+	// Answer true if the heap changed.
+	public boolean offer(int item, double key) {
+		int i = position[item];
+		if (i < 0) {
+			i = size++;
+			heap[i] = item;
+			position[item] = i;
+			keys[item] = key;
+			siftUp(i);
+			return true;
+		}
+		if (key < keys[item]) {
+			keys[item] = key;
+			siftUp(i);
+			return true;
+		}
+		return false;
+	}
+
+	// Remove and answer the item with the smallest key
+	public int poll() {
+		int top = heap[0];
+		position[top] = -1;
+		size--;
+		if (size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			position[last] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	// Empty the heap; only the items still queued are touched
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			position[heap[i]] = -1;
+		size = 0;
+	}
+
+	private void siftUp(int i) {
+		int item = heap[i];
+		double key = keys[item];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			int parentItem = heap[parent];
+			if (keys[parentItem] <= key)
+				break;
+			heap[i] = parentItem;
+			position[parentItem] = i;
+			i = parent;
+		}
+		heap[i] = item;
+		position[item] = i;
+	}
+
+	private void siftDown(int i) {
+		int item = heap[i];
+		double key = keys[item];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if (right < size && keys[heap[right]] < keys[heap[child]])
+				child = right;
+			if (key <= keys[heap[child]])
+				break;
+			heap[i] = heap[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = item;
+		position[item] = i;
+	}
+}
@@ -0,0 +1,39 @@
+package comp2402graphEditor;
+
+import java.util.Arrays;
+
+public class IntList {
+	// A growable list of primitive ints, used by algorithms to collect node and
+	// edge indices without boxing them into Integer objects
+
+	private int[] items;
+	private int size = 0;
+
+	public IntList() {
+		this(16);
+	}
+
+	public IntList(int capacity) {
+		items = new int[Math.max(capacity, 1)];
+	}
+
+	public int size() {return size;}
+	public boolean isEmpty() {return size == 0;}
+	public int get(int i) {return items[i];}
+	public void set(int i, int value) {items[i] = value;}
+	public void clear() {size = 0;}
+
+	public void add(int value) {
+		if (size == items.length)
+			items = Arrays.copyOf(items, size * 2);
+		items[size++] = value;
+	}
+
+	public int removeLast() {
+		return items[--size];
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(items, size);
+	}
+}
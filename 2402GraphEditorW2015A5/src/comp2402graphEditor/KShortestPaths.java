@@ -0,0 +1,280 @@
+package comp2402graphEditor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import comp2402graphEditor.Graph.PathFindingMethod;
+
+public class KShortestPaths {
+	// Yen's algorithm for the k shortest loopless paths from source to target,
+	// producing the paths one at a time in order of weight.
+	// Each new path is found by deviating from the previous one: for every spur
+	// node on it, the shortest path from the spur node to the target is searched
+	// with the nodes before the spur node removed, and with the next edge of every
+	// known path sharing that root removed. Root plus spur path becomes a candidate
+	// and the lightest candidate is the next path.
+	//
+	// Optimizations:
+	// - lazy: paths are produced on demand and candidates are kept in a heap,
+	//   so asking for one more path costs one round of spur searches
+	// - spur searches for a path only start at the node where that path deviated
+	//   from its parent (Lawler); earlier spur nodes were already handled
+	// - one shortest path tree into the target is grown once and shared: its
+	//   distances are an exact, consistent A* heuristic for every spur search
+	//   (removing nodes and edges only makes paths longer), and when the tree
+	//   path from a spur node avoids everything removed it is the spur path
+	//   and no search is needed at all
+	// - the spur searches of one round are independent and run in parallel
+
+	private final GraphSnapshot graph;
+	private final int source;
+	private final int target;
+	private final ThreadLocal<SearchContext> contexts;
+	private final ForkJoinPool pool;
+
+	private final double[] toTarget; // distance from each node to the target
+	private final int[] towardTarget; // edge from each node toward the target on the tree, -1 if none
+
+	private final ArrayList<Candidate> paths = new ArrayList<Candidate>(); // found so far, in order
+	private final PriorityQueue<Candidate> candidates = new PriorityQueue<Candidate>();
+	private final HashSet<Candidate> seen = new HashSet<Candidate>(); // every path ever queued
+
+	public KShortestPaths(GraphSnapshot g, int source, int target, ThreadLocal<SearchContext> contexts,
+			ForkJoinPool pool) {
+		this(g, source, target, contexts, pool, contexts.get());
+	}
+
+	// context is used to grow the shortest path tree into the target
+	private KShortestPaths(GraphSnapshot g, int source, int target, ThreadLocal<SearchContext> contexts,
+			ForkJoinPool pool, SearchContext context) {
+		graph = g;
+		this.source = source;
+		this.target = target;
+		this.contexts = contexts;
+		this.pool = pool;
+
+		int n = g.nodeCount();
+		toTarget = new double[n];
+		towardTarget = new int[n];
+		GraphSearch.shortestPathTree(g, target, Graph.infinity(), context);
+		for (int v = 0; v < n; v++) {
+			toTarget[v] = context.distanceTo(v);
+			towardTarget[v] = context.previousEdge(v);
+		}
+
+		if (toTarget[source] < Graph.infinity()) {
+			Candidate first = new Candidate(treePath(source, new int[0]), toTarget[source], 0, 0);
+			candidates.add(first);
+			seen.add(first);
+		}
+	}
+
+	public GraphSnapshot getGraph() {return graph;}
+
+	// Answer the next shortest loopless path, or null if there are no more
+	public PathResult next() {
+		if (!paths.isEmpty())
+			queueDeviationsOf(paths.get(paths.size() - 1));
+		Candidate best = candidates.poll();
+		if (best == null)
+			return null;
+		paths.add(best);
+		return new PathResult(graph, PathFindingMethod.YenKShortestPaths, source, target, true, best.weight,
+				best.edges, best.settledCount);
+	}
+
+	// Answer the lightest path from source to target, the first path a generator
+	// would produce, using only context (no spur searches are needed for it)
+	public static PathResult shortestPath(GraphSnapshot g, int source, int target, SearchContext context) {
+		PathResult thePath = new KShortestPaths(g, source, target, null, null, context).next();
+		if (thePath == null)
+			return new PathResult(g, PathFindingMethod.YenKShortestPaths, source, target, false, Graph.infinity(),
+					new int[0], context.getSettledCount());
+		return thePath;
+	}
+
+	// Answer up to k paths in order of weight
+	public ArrayList<PathResult> next(int k) {
+		ArrayList<PathResult> result = new ArrayList<PathResult>();
+		for (PathResult aPath; result.size() < k && (aPath = next()) != null; )
+			result.add(aPath);
+		return result;
+	}
+
+	private void queueDeviationsOf(Candidate last) {
+		int[] nodes = nodesOf(last.edges);
+		int spurCount = last.edges.length - last.deviation;
+		if (spurCount <= 0)
+			return;
+		Candidate[] spurPaths = new Candidate[spurCount];
+		pool.invoke(new SpurTask(last, nodes, spurPaths, 0, spurCount));
+		for (Candidate aCandidate : spurPaths)
+			if (aCandidate != null && seen.add(aCandidate))
+				candidates.add(aCandidate);
+	}
+
+	// Deviate from path at node position spur; answer null if no spur path exists
+	private Candidate spurPath(Candidate path, int[] nodes, int spur, SearchContext context) {
+		int spurNode = nodes[spur];
+		int[] root = Arrays.copyOf(path.edges, spur);
+
+		// remove the next edge of every known path with the same root
+		IntList removedEdges = new IntList();
+		for (Candidate known : paths)
+			if (known.edges.length > spur && sameRoot(known.edges, root))
+				removedEdges.add(known.edges[spur]);
+
+		// the root nodes are removed by marking them visited before the search starts
+		context.reset(graph.nodeCount());
+		for (int i = 0; i < spur; i++)
+			context.setVisited(nodes[i]);
+
+		double rootWeight = 0.0;
+		for (int e : root)
+			rootWeight += graph.edgeWeight[e];
+
+		// the tree path toward the target is the answer if nothing removed is on it
+		if (treePathAvoids(spurNode, removedEdges, context))
+			return new Candidate(treePath(spurNode, root), rootWeight + toTarget[spurNode], spur, 0);
+
+		// A* toward the target with the tree distances as heuristic
+		IndexedMinHeap frontier = context.frontier;
+		context.setDistance(spurNode, 0.0, -1);
+		frontier.offer(spurNode, toTarget[spurNode]);
+		boolean found = false;
+		while (!frontier.isEmpty()) {
+			int currentNode = frontier.poll();
+			if (currentNode == target) {
+				found = true;
+				break;
+			}
+			context.setVisited(currentNode);
+			context.settledCount++;
+			double currentDistance = context.distanceTo(currentNode);
+			for (int arc = graph.firstArc[currentNode]; arc < graph.firstArc[currentNode + 1]; arc++) {
+				int neighbour = graph.arcHead[arc];
+				if (context.isVisited(neighbour) || toTarget[neighbour] == Graph.infinity())
+					continue;
+				if (currentNode == spurNode && contains(removedEdges, graph.arcEdge[arc]))
+					continue;
+				double d = currentDistance + graph.arcWeight[arc];
+				if (context.distanceTo(neighbour) > d) {
+					context.setDistance(neighbour, d, graph.arcEdge[arc]);
+					frontier.offer(neighbour, d + toTarget[neighbour]);
+				}
+			}
+		}
+		if (!found)
+			return null;
+
+		IntList spurEdges = new IntList();
+		for (int v = target; v != spurNode; v = GraphSearch.otherEnd(graph, context.previousEdge(v), v))
+			spurEdges.add(context.previousEdge(v));
+		int[] edges = Arrays.copyOf(root, root.length + spurEdges.size());
+		for (int i = 0; i < spurEdges.size(); i++)
+			edges[root.length + i] = spurEdges.get(spurEdges.size() - 1 - i);
+		return new Candidate(edges, rootWeight + context.distanceTo(target), spur, context.settledCount);
+	}
+
+	private boolean treePathAvoids(int v, IntList removedEdges, SearchContext context) {
+		if (toTarget[v] == Graph.infinity() || contains(removedEdges, towardTarget[v]))
+			return false;
+		for (; v != target; v = GraphSearch.otherEnd(graph, towardTarget[v], v))
+			if (context.isVisited(v))
+				return false;
+		return true;
+	}
+
+	// root followed by the tree path from v to the target
+	private int[] treePath(int v, int[] root) {
+		IntList edges = new IntList();
+		for (int e : root)
+			edges.add(e);
+		for (; v != target; v = GraphSearch.otherEnd(graph, towardTarget[v], v))
+			edges.add(towardTarget[v]);
+		return edges.toArray();
+	}
+
+	private int[] nodesOf(int[] edges) {
+		int[] nodes = new int[edges.length + 1];
+		nodes[0] = source;
+		for (int i = 0; i < edges.length; i++)
+			nodes[i + 1] = GraphSearch.otherEnd(graph, edges[i], nodes[i]);
+		return nodes;
+	}
+
+	private static boolean sameRoot(int[] edges, int[] root) {
+		for (int i = 0; i < root.length; i++)
+			if (edges[i] != root[i])
+				return false;
+		return true;
+	}
+
+	private static boolean contains(IntList list, int value) {
+		for (int i = 0; i < list.size(); i++)
+			if (list.get(i) == value)
+				return true;
+		return false;
+	}
+
+	// A path (found or candidate), ordered by weight; equal if it has the same edges
+	private static class Candidate implements Comparable<Candidate> {
+		final int[] edges;
+		final double weight;
+		final int deviation; // position of the spur node this path deviated at
+		final int settledCount;
+
+		Candidate(int[] edges, double weight, int deviation, int settledCount) {
+			this.edges = edges;
+			this.weight = weight;
+			this.deviation = deviation;
+			this.settledCount = settledCount;
+		}
+
+		public int compareTo(Candidate other) {
+			if (weight != other.weight)
+				return weight < other.weight ? -1 : 1;
+			return edges.length - other.edges.length;
+		}
+
+		public boolean equals(Object other) {
+			return other instanceof Candidate && Arrays.equals(edges, ((Candidate) other).edges);
+		}
+
+		public int hashCode() {
+			return Arrays.hashCode(edges);
+		}
+	}
+
+	// the spur searches at positions deviation+from .. deviation+to-1 of a path
+	private class SpurTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Candidate path;
+		private final int[] nodes;
+		private final Candidate[] spurPaths;
+		private final int from, to;
+
+		SpurTask(Candidate path, int[] nodes, Candidate[] spurPaths, int from, int to) {
+			this.path = path;
+			this.nodes = nodes;
+			this.spurPaths = spurPaths;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new SpurTask(path, nodes, spurPaths, from, middle),
+						new SpurTask(path, nodes, spurPaths, middle, to));
+				return;
+			}
+			if (to > from)
+				spurPaths[from] = spurPath(path, nodes, path.deviation + from, contexts.get());
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package comp2402graphEditor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+public class LabelIndex {
+	// The nodes of a graph by label, for Graph.nodeNamed and label searches.
+	// A hash map from label to the nodes carrying it answers exact lookups;
+	// Graph keeps it current as nodes are added, removed and relabelled.
+	// Prefix searches use the labels sorted into one array, where the labels
+	// starting with a prefix form a contiguous run found by binary search. The
+	// sorted array is rebuilt on the first prefix search after a change.
+	// Each node's position in its label's list is kept (by node id) so that
+	// removing it is a swap with the last node of the list, not a search: bulk
+	// relabels (clear every label, then number the nodes) stay linear even
+	// though all nodes briefly share one label.
+
+	private final HashMap<String, ArrayList<Node>> nodesByLabel = new HashMap<String, ArrayList<Node>>();
+	private int[] slot = new int[16]; // position of each node in its label's list, by node id
+	private Node[] sorted = null; // nodes with a label ordered by label, null when out of date
+
+	private static final Comparator<Node> byLabel = new Comparator<Node>() {
+		public int compare(Node a, Node b) {
+			int result = a.getLabel().compareTo(b.getLabel());
+			return result != 0 ? result : a.getIndex() - b.getIndex();
+		}
+	};
+
+	public void add(Node aNode) {
+		add(aNode, aNode.getLabel());
+	}
+
+	public void remove(Node aNode) {
+		remove(aNode, aNode.getLabel());
+	}
+
+	// aNode's label changed from oldLabel to its current label
+	public void relabel(Node aNode, String oldLabel) {
+		remove(aNode, oldLabel);
+		add(aNode, aNode.getLabel());
+	}
+
+	private void add(Node aNode, String label) {
+		ArrayList<Node> list = nodesByLabel.get(label);
+		if (list == null)
+			nodesByLabel.put(label, list = new ArrayList<Node>(1));
+		if (aNode.getId() >= slot.length)
+			slot = Arrays.copyOf(slot, Math.max(aNode.getId() + 1, slot.length * 2));
+		slot[aNode.getId()] = list.size();
+		list.add(aNode);
+		sorted = null;
+	}
+
+	private void remove(Node aNode, String label) {
+		ArrayList<Node> list = nodesByLabel.get(label);
+		if (list == null || aNode.getId() >= slot.length)
+			return;
+		int i = slot[aNode.getId()];
+		if (i >= list.size() || list.get(i) != aNode)
+			return; // not filed under label
+		Node last = list.remove(list.size() - 1);
+		if (last != aNode) {
+			list.set(i, last);
+			slot[last.getId()] = i;
+		}
+		if (list.isEmpty())
+			nodesByLabel.remove(label);
+		sorted = null;
+	}
+
+	// Answer the first node (in node list order) with the given label, null if none
+	public Node first(String aLabel) {
+		ArrayList<Node> list = nodesByLabel.get(aLabel);
+		if (list == null)
+			return null;
+		Node result = list.get(0);
+		for (Node aNode : list)
+			if (aNode.getIndex() < result.getIndex())
+				result = aNode;
+		return result;
+	}
+
+	// Answer the nodes whose label starts with prefix, ordered by label
+	public ArrayList<Node> withPrefix(String prefix) {
+		Node[] nodes = sortedNodes();
+		// first node whose label is not below prefix
+		int low = 0, high = nodes.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (nodes[middle].getLabel().compareTo(prefix) < 0)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		ArrayList<Node> result = new ArrayList<Node>();
+		for (int i = low; i < nodes.length && nodes[i].getLabel().startsWith(prefix); i++)
+			result.add(nodes[i]);
+		return result;
+	}
+
+	private Node[] sortedNodes() {
+		if (sorted == null) {
+			ArrayList<Node> labelled = new ArrayList<Node>();
+			for (ArrayList<Node> list : nodesByLabel.values())
+				if (list.get(0).getLabel() != null)
+					labelled.addAll(list);
+			sorted = labelled.toArray(new Node[labelled.size()]);
+			Arrays.sort(sorted, byLabel);
+		}
+		return sorted;
+	}
+}
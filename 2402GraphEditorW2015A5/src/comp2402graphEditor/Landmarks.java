@@ -0,0 +1,270 @@
+package comp2402graphEditor;
+
+import java.io.*;
+import java.util.Random;
+
+public class Landmarks {
+	// Landmark distance tables for the ALT (A*, landmarks, triangle inequality)
+	// heuristic. For every landmark L the exact shortest path distance d(L, v) to
+	// every node v is stored. By the triangle inequality |d(L, t) - d(L, v)| is a
+	// lower bound on d(v, t), and the largest such bound over all landmarks is an
+	// admissible and consistent heuristic that, unlike straight line distance,
+	// follows user assigned edge weights.
+	// The graph is undirected so the distance to a landmark equals the distance
+	// from it and one table per landmark serves both directions.
+	// Tables belong to one GraphSnapshot and are recomputed when the graph changes.
+
+	public static enum Strategy {
+		Farthest, Avoid
+	}
+
+	public static final int DEFAULT_COUNT = 8;
+	public static final String FILE_EXTENSION = ".landmarks";
+
+	private static final int FILE_MAGIC = 0x4c4d524b; // "LMRK"
+	private static final int FILE_VERSION = 1;
+
+	private final GraphSnapshot graph; // snapshot the tables were computed on
+	private final int[] landmarks; // node index of each landmark
+	private final double[] distance; // distance[i * n + v] is d(landmarks[i], v)
+
+	private Landmarks(GraphSnapshot graph, int[] landmarks, double[] distance) {
+		this.graph = graph;
+		this.landmarks = landmarks;
+		this.distance = distance;
+	}
+
+	public GraphSnapshot getGraph() {return graph;}
+	public int count() {return landmarks.length;}
+	public int landmark(int i) {return landmarks[i];}
+
+	public double distance(int i, int v) {
+		return distance[i * graph.nodeCount() + v];
+	}
+
+	// lower bound on the shortest path distance between v and target
+	public double lowerBound(int v, int target) {
+		int n = graph.nodeCount();
+		double best = 0.0;
+		for (int i = 0, offset = 0; i < landmarks.length; i++, offset += n) {
+			double dv = distance[offset + v];
+			double dt = distance[offset + target];
+			if (dv == Graph.infinity() || dt == Graph.infinity()) {
+				if (dv != dt)
+					return Graph.infinity(); // v and target lie in different components
+				continue;
+			}
+			double bound = Math.abs(dt - dv);
+			if (bound > best)
+				best = bound;
+		}
+		return best;
+	}
+
+	// PREPROCESSING
+	// Choose k landmarks with the given strategy and compute their distance tables
+	public static Landmarks compute(GraphSnapshot g, int k, Strategy strategy) {
+		int n = g.nodeCount();
+		k = Math.min(k, n);
+		int[] chosen = new int[k];
+		double[] distance = new double[k * n];
+		SearchContext context = new SearchContext(n);
+		Random rand = new Random(n); // repeatable choices for the same graph
+
+		// closest[v] is the distance from v to its nearest chosen landmark
+		double[] closest = new double[n];
+		java.util.Arrays.fill(closest, Graph.infinity());
+
+		for (int i = 0; i < k; i++) {
+			int next;
+			if (strategy == Strategy.Avoid && i > 0)
+				next = avoidLandmark(g, chosen, distance, i, rand.nextInt(n), context);
+			else
+				next = farthestLandmark(g, closest, i == 0 ? rand.nextInt(n) : -1, context);
+			chosen[i] = next;
+
+			GraphSearch.shortestPathTree(g, next, Graph.infinity(), context);
+			for (int v = 0, offset = i * n; v < n; v++) {
+				distance[offset + v] = context.distanceTo(v);
+				closest[v] = Math.min(closest[v], distance[offset + v]);
+			}
+		}
+		return new Landmarks(g, chosen, distance);
+	}
+
+	private static int farthestLandmark(GraphSnapshot g, double[] closest, int start, SearchContext context) {
+		// The node farthest from all landmarks chosen so far. Nodes no landmark
+		// reaches count as infinitely far, so each component gets a landmark.
+		// The first landmark is the node farthest from a random start node.
+		if (start >= 0) {
+			GraphSearch.shortestPathTree(g, start, Graph.infinity(), context);
+			int farthest = start;
+			for (int i = 0; i < context.reachedCount(); i++) {
+				int v = context.reachedNode(i);
+				if (context.distanceTo(v) > context.distanceTo(farthest))
+					farthest = v;
+			}
+			return farthest;
+		}
+		int farthest = 0;
+		for (int v = 1; v < closest.length; v++)
+			if (closest[v] > closest[farthest])
+				farthest = v;
+		return farthest;
+	}
+
+	private static int avoidLandmark(GraphSnapshot g, int[] chosen, double[] distance, int count, int root,
+			SearchContext context) {
+		// The "avoid" strategy of Goldberg and Werneck: grow a shortest path tree
+		// from a random root and weigh each node by how badly the current landmarks
+		// bound its distance from the root. Walk down from the root into the heaviest
+		// subtree that contains no landmark and take the leaf reached.
+		int n = g.nodeCount();
+		GraphSearch.shortestPathTree(g, root, Graph.infinity(), context);
+		Landmarks current = new Landmarks(g, java.util.Arrays.copyOf(chosen, count), distance);
+
+		double[] size = new double[n];
+		int[] children = new int[n];
+		int[] parent = new int[n];
+		boolean[] isLandmark = new boolean[n];
+		for (int i = 0; i < count; i++)
+			isLandmark[chosen[i]] = true;
+
+		for (int i = 0; i < context.reachedCount(); i++) {
+			int v = context.reachedNode(i);
+			int edge = context.previousEdge(v);
+			parent[v] = edge < 0 ? -1 : GraphSearch.otherEnd(g, edge, v);
+			size[v] = context.distanceTo(v) - current.lowerBound(root, v);
+			if (parent[v] >= 0)
+				children[parent[v]]++;
+		}
+
+		// add subtree sizes bottom up, starting from the leaves; a subtree
+		// containing a landmark gets size 0 so it is never chosen
+		IntList leaves = new IntList();
+		for (int i = 0; i < context.reachedCount(); i++)
+			if (children[context.reachedNode(i)] == 0)
+				leaves.add(context.reachedNode(i));
+		boolean[] hasLandmark = new boolean[n];
+		while (!leaves.isEmpty()) {
+			int v = leaves.removeLast();
+			if (isLandmark[v] || hasLandmark[v]) {
+				hasLandmark[v] = true;
+				size[v] = 0.0;
+			}
+			int p = parent[v];
+			if (p >= 0) {
+				size[p] += size[v];
+				hasLandmark[p] |= hasLandmark[v];
+				if (--children[p] == 0)
+					leaves.add(p);
+			}
+		}
+
+		// descend into the heaviest child until reaching a leaf
+		int v = root;
+		while (true) {
+			int heaviest = -1;
+			for (int arc = g.firstArc[v]; arc < g.firstArc[v + 1]; arc++) {
+				int w = g.arcHead[arc];
+				if (parent[w] == v && context.previousEdge(w) == g.arcEdge[arc] && size[w] > 0
+						&& (heaviest < 0 || size[w] > size[heaviest]))
+					heaviest = w;
+			}
+			if (heaviest < 0)
+				break;
+			v = heaviest;
+		}
+		if (isLandmark[v]) {
+			// every subtree already has a landmark, fall back to the farthest node
+			double[] closest = new double[n];
+			java.util.Arrays.fill(closest, Graph.infinity());
+			for (int i = 0; i < count; i++)
+				for (int w = 0; w < n; w++)
+					closest[w] = Math.min(closest[w], distance[i * n + w]);
+			return farthestLandmark(g, closest, -1, context);
+		}
+		return v;
+	}
+
+	// PERSISTENCE
+	// The tables are saved next to the graph file so they need not be recomputed
+	// when the graph is opened again. A fingerprint of the graph's edges and
+	// weights is stored with them; tables that do not match the graph are ignored.
+
+	public static File fileFor(File graphFile) {
+		return new File(graphFile.getPath() + FILE_EXTENSION);
+	}
+
+	public void writeToFile(File aFile) {
+		try {
+			DataOutputStream outputFile = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(aFile)));
+			outputFile.writeInt(FILE_MAGIC);
+			outputFile.writeInt(FILE_VERSION);
+			outputFile.writeInt(graph.nodeCount());
+			outputFile.writeInt(graph.edgeCount());
+			outputFile.writeLong(fingerprint(graph));
+			outputFile.writeInt(landmarks.length);
+			for (int landmark : landmarks)
+				outputFile.writeInt(landmark);
+			for (double d : distance)
+				outputFile.writeDouble(d);
+			outputFile.close();
+		} catch (IOException e) {
+			System.out.println("Error: Cannot write landmarks to file: " + aFile);
+		}
+	}
+
+	// Answer the landmarks stored in aFile if they were computed for graph g, otherwise null
+	public static Landmarks readFromFile(File aFile, GraphSnapshot g) {
+		if (!aFile.exists())
+			return null;
+		try {
+			DataInputStream inputFile = new DataInputStream(new BufferedInputStream(new FileInputStream(aFile)));
+			try {
+				if (inputFile.readInt() != FILE_MAGIC || inputFile.readInt() != FILE_VERSION)
+					return null;
+				if (inputFile.readInt() != g.nodeCount() || inputFile.readInt() != g.edgeCount()
+						|| inputFile.readLong() != fingerprint(g)) {
+					System.out.println("Landmarks in " + aFile + " do not match the graph, ignoring them");
+					return null;
+				}
+				int k = inputFile.readInt();
+				if (k <= 0 || k > g.nodeCount()) {
+					System.out.println("LANDMARK PARSE Error: bad landmark count " + k + ", file may be corrupted.");
+					return null;
+				}
+				int[] landmarks = new int[k];
+				for (int i = 0; i < k; i++) {
+					landmarks[i] = inputFile.readInt();
+					if (landmarks[i] < 0 || landmarks[i] >= g.nodeCount()) {
+						System.out.println("LANDMARK PARSE Error: landmark " + landmarks[i] + " is not a node, file may be corrupted.");
+						return null;
+					}
+				}
+				double[] distance = new double[k * g.nodeCount()];
+				for (int i = 0; i < distance.length; i++)
+					distance[i] = inputFile.readDouble();
+				return new Landmarks(g, landmarks, distance);
+			} finally {
+				inputFile.close();
+			}
+		} catch (EOFException e) {
+			System.out.println("LANDMARK PARSE Error: EOF encountered, file may be corrupted.");
+		} catch (IOException e) {
+			System.out.println("LANDMARK PARSE Error: Cannot read from file.");
+		}
+		return null;
+	}
+
+	// a hash of the edges and weights of g
+	private static long fingerprint(GraphSnapshot g) {
+		long hash = g.nodeCount();
+		for (int e = 0; e < g.edgeCount(); e++) {
+			hash = 31 * hash + g.edgeStart[e];
+			hash = 31 * hash + g.edgeEnd[e];
+			hash = 31 * hash + Double.doubleToLongBits(g.edgeWeight[e]);
+		}
+		return hash;
+	}
+}
@@ -44,6 +44,9 @@ public class Node {
 	private boolean marked; // marked state for display
 	private int weight = 0; // used when the graph should model nodes with
 							// different weights
+	private int index = -1; // position of this node in its graph's node list
+	private int id = -1; // number given by its graph, unchanged by deletions (keys the EdgeIndex)
+	private Graph graph = null; // graph this node belongs to
 
 	// Variables used for drawing and editing the graph with GUI
 	private Point location; // drawing location of the node
@@ -106,6 +109,14 @@ public class Node {
 		return location;
 	}
 
+	public int getX() {
+		return location.x;
+	}
+
+	public int getY() {
+		return location.y;
+	}
+
 	public boolean isSelected() {
 		return selected;
 	}
@@ -157,32 +168,76 @@ public class Node {
 		previousEdge = theEdge;
 	}
 
+	public int getIndex() {
+		return index;
+	}
+
+	void setIndex(int anIndex) {
+		index = anIndex;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	void setId(int anId) {
+		id = anId;
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	void setGraph(Graph aGraph) {
+		graph = aGraph;
+	}
+
 	public ArrayList<Edge> incidentEdges() {
 		return incidentEdges;
 	}
 
 	public void setLabel(String newLabel) {
+		String oldLabel = label;
 		label = newLabel;
+		if (graph != null)
+			graph.labelChanged(this, oldLabel);
 	}
 
 	public void setLabel(int intLabel) {
-		label = String.valueOf(intLabel);
+		setLabel(String.valueOf(intLabel));
 	}
 
 	public void setLocation(Point aPoint) {
 		alternateLocation = location; // store old location to allow reset
 		location = aPoint;
+		moved();
 	}
 
 	public void resetLocation() {
 		// reset location to the alternate point.
 		location = alternateLocation;
+		moved();
 	}
 
 	public void setLocation(int x, int y) {
 		setLocation(new Point(x, y));
 	}
 
+	// move the node by dx, dy (used when dragging nodes)
+	public void translate(int dx, int dy) {
+		location.translate(dx, dy);
+		moved();
+	}
+
+	// tell the incident edges (whose cached lengths are now out of date) and
+	// the graph that this node moved
+	private void moved() {
+		for (Edge anEdge : incidentEdges)
+			anEdge.endMoved();
+		if (graph != null)
+			graph.nodeMoved(this);
+	}
+
 	public void setDeltaForLocation(Point newLocation, int animationSteps) {
 		deltaX = (newLocation.x - location.x) / animationSteps;
 		deltaY = (newLocation.y - location.y) / animationSteps;
@@ -219,6 +274,7 @@ public class Node {
 	// Adding and deleting incident edges
 	public void addIncidentEdge(Edge e) {
 		incidentEdges.add(e);
+		e.endMoved(); // this node may have moved before e was attached to it
 	}
 
 	public void deleteIncidentEdge(Edge e) {
@@ -227,6 +283,8 @@ public class Node {
 
 	public boolean isConnectedTo(Node aNode) {
 		// answer whether there is an edge between this and aNode
+		if (graph != null && graph == aNode.getGraph())
+			return graph.edgeBetween(this, aNode) != null;
 
 		Iterator<Edge> edges = incidentEdges.iterator();
 		while (edges.hasNext())
@@ -253,13 +311,12 @@ public class Node {
 
 	// helper methods to do calculations
 	private double distanceBetween(Node n1, Node n2) {
-		return Math.sqrt((double) ((n2.getLocation().x - n1.getLocation().x) * (n2.getLocation().x - n1.getLocation().x)
-				+ (n2.getLocation().y - n1.getLocation().y) * (n2.getLocation().y - n1.getLocation().y)));
+		return Math.sqrt((double) ((n2.getX() - n1.getX()) * (n2.getX() - n1.getX())
+				+ (n2.getY() - n1.getY()) * (n2.getY() - n1.getY())));
 	}
 
-	private double distanceBetween(Point p1, Point p2) {
-		return Math.sqrt((double) ((p2.x - p1.x) * (p2.x - p1.x) + (p2.y - p1.y) * (p2.y - p1.y)));
-
+	private double distanceTo(Point p) {
+		return Math.sqrt((double) ((location.x - p.x) * (location.x - p.x) + (location.y - p.y) * (location.y - p.y)));
 	}
 
 	public Node neighbourClosestTo(Point p) {
@@ -267,12 +324,12 @@ public class Node {
 		double distance = Double.POSITIVE_INFINITY;
 		Node closestNeighbour = null;
 
-		Iterator<Node> neighbours = neighbours().iterator();
-		while (neighbours.hasNext()) {
-			Node n = neighbours.next();
-			if (distanceBetween(p, n.getLocation()) < distance) {
+		for (Edge e : incidentEdges) {
+			Node n = e.otherNode(this);
+			double d = n.distanceTo(p);
+			if (d < distance) {
 				closestNeighbour = n;
-				distance = distanceBetween(p, n.getLocation());
+				distance = d;
 			}
 		}
 		return closestNeighbour;
@@ -283,12 +340,12 @@ public class Node {
 		double distance = 0.0;
 		Node furthestNeighbour = null;
 
-		Iterator<Node> neighbours = neighbours().iterator();
-		while (neighbours.hasNext()) {
-			Node n = neighbours.next();
-			if (distanceBetween(p, n.getLocation()) > distance) {
+		for (Edge e : incidentEdges) {
+			Node n = e.otherNode(this);
+			double d = n.distanceTo(p);
+			if (d > distance) {
 				furthestNeighbour = n;
-				distance = distanceBetween(p, n.getLocation());
+				distance = d;
 			}
 		}
 		return furthestNeighbour;
@@ -0,0 +1,301 @@
+package comp2402graphEditor;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class OffHeapGraphStore implements ReadOnlyGraph {
+	// A graph kept outside the Java heap, for graphs too large to load as Node
+	// and Edge objects. It is a GraphBinaryFile whose arrays stay mapped into
+	// memory: the coordinates, the CSR adjacency, the edges and the labels are
+	// read straight from the mapped pages and the operating system pages them in
+	// and out as needed, so the heap holds nothing per node or edge.
+	// The path algorithms of GraphSearch run on it directly (with a SearchContext
+	// of nodeCount() entries, the only per node state they keep on the heap).
+	// The editor only needs objects for the part of the graph it shows or edits:
+	// materialize builds a Graph of just the given nodes and the edges among them,
+	// and nodesIn finds the nodes of a region with the grid section of the file
+	// (files without one, of version 1, are scanned node by node).
+	// A materialized Graph is a copy: the store is read only, so edits made to
+	// the copy are never written back to the store's file (save the copy to a
+	// file of its own). The store can be searched by several threads at once.
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final int nodes, edges, arcs;
+	private final IntBuffer x, y, nodeWeight, nodeLabel;
+	private final IntBuffer firstArc, arcHead, arcEdge;
+	private final IntBuffer edgeStart, edgeEnd, edgeWeight, edgeLabel;
+	private final IntBuffer stringStart;
+	private final IntBuffer cellStart, cellNodes; // the grid, null if the file has none
+	private final int gridLeft, gridTop, cellSize, columns, rows;
+	private final ByteBuffer edgeFlags, text;
+	private final double lowerBoundScale; // as in GraphSnapshot
+
+	private OffHeapGraphStore(FileChannel channel) throws IOException {
+		GraphBinaryFile.Layout layout = new GraphBinaryFile.Layout(channel);
+		nodes = layout.nodes;
+		edges = layout.edges;
+		arcs = layout.arcs;
+		x = GraphBinaryFile.intSection(channel, layout.nodeX, nodes);
+		y = GraphBinaryFile.intSection(channel, layout.nodeY, nodes);
+		nodeWeight = GraphBinaryFile.intSection(channel, layout.nodeWeight, nodes);
+		nodeLabel = GraphBinaryFile.intSection(channel, layout.nodeLabel, nodes);
+		firstArc = GraphBinaryFile.intSection(channel, layout.firstArc, nodes + 1);
+		arcHead = GraphBinaryFile.intSection(channel, layout.arcHead, arcs);
+		arcEdge = GraphBinaryFile.intSection(channel, layout.arcEdge, arcs);
+		edgeStart = GraphBinaryFile.intSection(channel, layout.edgeStart, edges);
+		edgeEnd = GraphBinaryFile.intSection(channel, layout.edgeEnd, edges);
+		edgeWeight = GraphBinaryFile.intSection(channel, layout.edgeWeight, edges);
+		edgeLabel = GraphBinaryFile.intSection(channel, layout.edgeLabel, edges);
+		stringStart = GraphBinaryFile.intSection(channel, layout.stringStart, layout.strings + 1);
+		gridLeft = layout.gridLeft;
+		gridTop = layout.gridTop;
+		cellSize = layout.cellSize;
+		columns = layout.columns;
+		rows = layout.rows;
+		if (layout.hasGrid()) {
+			cellStart = GraphBinaryFile.intSection(channel, layout.cellStart, columns * rows + 1);
+			cellNodes = GraphBinaryFile.intSection(channel, layout.cellNodes, nodes);
+		} else {
+			cellStart = null;
+			cellNodes = null;
+		}
+		edgeFlags = GraphBinaryFile.byteSection(channel, layout.edgeFlags, edges);
+		text = GraphBinaryFile.byteSection(channel, layout.text, layout.stringBytes);
+
+		if (firstArc.get(0) != 0 || firstArc.get(nodes) != arcs)
+			throw new IOException("binary graph file has a corrupted adjacency");
+		if (cellStart != null && (cellStart.get(0) != 0 || cellStart.get(columns * rows) != nodes))
+			throw new IOException("binary graph file has a corrupted grid");
+		double scale = 1.0;
+		for (int e = 0; e < edges; e++) {
+			double length = distanceBetween(edgeStart.get(e), edgeEnd.get(e));
+			if (length > 0)
+				scale = Math.min(scale, Math.max(edgeWeight.get(e), 0) / length);
+		}
+		lowerBoundScale = scale;
+	}
+
+	// Answer a store over the binary graph file aFile (see GraphBinaryFile)
+	public static OffHeapGraphStore open(File aFile) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(aFile, "r");
+		try {
+			return new OffHeapGraphStore(file.getChannel()); // mappings outlive the channel
+		} finally {
+			file.close();
+		}
+	}
+
+	public int nodeCount() {return nodes;}
+	public int edgeCount() {return edges;}
+	public int arcCount() {return arcs;}
+
+	public int firstArc(int v) {return firstArc.get(v);}
+	public int arcHead(int arc) {return arcHead.get(arc);}
+	public int arcEdge(int arc) {return arcEdge.get(arc);}
+	public double arcWeight(int arc) {return edgeWeight.get(arcEdge.get(arc));}
+
+	public int edgeStart(int e) {return edgeStart.get(e);}
+	public int edgeEnd(int e) {return edgeEnd.get(e);}
+	public double edgeWeight(int e) {return edgeWeight.get(e);}
+
+	public int x(int v) {return x.get(v);}
+	public int y(int v) {return y.get(v);}
+
+	public double distanceBetween(int u, int v) {
+		double dx = x.get(u) - x.get(v);
+		double dy = y.get(u) - y.get(v);
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+	public double lowerBound(int u, int v) {
+		return lowerBoundScale * distanceBetween(u, v);
+	}
+
+	public String nodeLabel(int v) {return string(nodeLabel.get(v));}
+	public String edgeLabel(int e) {return string(edgeLabel.get(e));}
+
+	private String string(int s) {
+		if (s < 0)
+			return null;
+		int start = stringStart.get(s);
+		byte[] bytes = new byte[stringStart.get(s + 1) - start];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = text.get(start + i);
+		return new String(bytes, UTF8);
+	}
+
+	// Answer the area covered by the nodes: the grid of the file, or for a
+	// file without one the bounding box of all the nodes
+	public Rectangle bounds() {
+		if (cellStart != null)
+			return new Rectangle(gridLeft, gridTop, (int) Math.min(Integer.MAX_VALUE, (long) columns * cellSize),
+					(int) Math.min(Integer.MAX_VALUE, (long) rows * cellSize));
+		if (nodes == 0)
+			return new Rectangle();
+		int left = Integer.MAX_VALUE, top = Integer.MAX_VALUE, right = Integer.MIN_VALUE, bottom = Integer.MIN_VALUE;
+		for (int v = 0; v < nodes; v++) {
+			left = Math.min(left, x.get(v));
+			top = Math.min(top, y.get(v));
+			right = Math.max(right, x.get(v));
+			bottom = Math.max(bottom, y.get(v));
+		}
+		return new Rectangle(left, top, (int) Math.min(Integer.MAX_VALUE, (long) right - left + 1),
+				(int) Math.min(Integer.MAX_VALUE, (long) bottom - top + 1));
+	}
+
+	// Answer the nodes whose location is in area, in index order. Only the grid
+	// cells overlapping area are read, so this costs about as much as the
+	// number of nodes near area rather than the size of the store
+	public int[] nodesIn(Rectangle area) {
+		IntList result = new IntList();
+		if (area.isEmpty())
+			return result.toArray();
+		if (cellStart == null) {
+			for (int v = 0; v < nodes; v++)
+				if (area.contains(x.get(v), y.get(v)))
+					result.add(v);
+			return result.toArray();
+		}
+		int fromColumn = cellColumn(area.x), toColumn = cellColumn((long) area.x + area.width - 1);
+		int fromRow = cellRow(area.y), toRow = cellRow((long) area.y + area.height - 1);
+		for (int row = fromRow; row <= toRow; row++)
+			for (int c = row * columns + fromColumn; c <= row * columns + toColumn; c++)
+				for (int i = cellStart.get(c); i < cellStart.get(c + 1); i++) {
+					int v = cellNodes.get(i);
+					if (area.contains(x.get(v), y.get(v)))
+						result.add(v);
+				}
+		int[] nodeIds = result.toArray();
+		Arrays.sort(nodeIds);
+		return nodeIds;
+	}
+
+	// grid column and row of a coordinate, clamped to the grid
+	private int cellColumn(long aX) {
+		return (int) Math.max(0, Math.min(columns - 1, (aX - gridLeft) / cellSize));
+	}
+
+	private int cellRow(long aY) {
+		return (int) Math.max(0, Math.min(rows - 1, (aY - gridTop) / cellSize));
+	}
+
+	// Answer a Graph of the given nodes (node i of the graph is nodeIds[i]) and
+	// every edge of the store between two of them, in edge index order. Edges
+	// to nodes that are not given are left out; see materialize(Rectangle)
+	public Graph materialize(int[] nodeIds) {
+		Graph aGraph = new Graph();
+		Positions position = new Positions(nodeIds.length); // position in nodeIds of each node given
+		Node[] nodeObjects = new Node[nodeIds.length];
+		for (int i = 0; i < nodeIds.length; i++) {
+			int v = nodeIds[i];
+			Node aNode = new Node(new Point(x.get(v), y.get(v)));
+			aNode.setLabel(nodeLabel(v));
+			aNode.setWeight(nodeWeight.get(v));
+			aGraph.addNode(aNode);
+			nodeObjects[i] = aNode;
+			position.put(v, i);
+		}
+		IntList edgeIds = new IntList();
+		for (int v : nodeIds)
+			for (int arc = firstArc.get(v); arc < firstArc.get(v + 1); arc++) {
+				int e = arcEdge.get(arc);
+				if (edgeStart.get(e) == v && position.get(edgeEnd.get(e)) >= 0)
+					edgeIds.add(e); // once, from its start node
+			}
+		int[] sorted = edgeIds.toArray();
+		Arrays.sort(sorted);
+		ArrayList<Edge> edgeObjects = new ArrayList<Edge>(sorted.length);
+		for (int e : sorted) {
+			Edge anEdge = new Edge(edgeLabel(e), nodeObjects[position.get(edgeStart.get(e))],
+					nodeObjects[position.get(edgeEnd.get(e))]);
+			if ((edgeFlags.get(e) & GraphBinaryFile.ASSIGNED_WEIGHT) != 0)
+				anEdge.setWeight(edgeWeight.get(e));
+			edgeObjects.add(anEdge);
+		}
+		aGraph.addEdges(edgeObjects);
+		return aGraph;
+	}
+
+	// Answer a Graph of the nodes in area and every edge at them. The far ends
+	// of edges leaving area are included too, so no edge crossing the border
+	// of area is lost; edges between two nodes outside area are left out
+	public Graph materialize(Rectangle area) {
+		int[] inside = nodesIn(area);
+		int arcsOut = 0;
+		for (int v : inside)
+			arcsOut += firstArc.get(v + 1) - firstArc.get(v);
+		Positions included = new Positions(inside.length + arcsOut);
+		IntList nodeIds = new IntList();
+		for (int v : inside) {
+			included.put(v, nodeIds.size());
+			nodeIds.add(v);
+		}
+		for (int v : inside)
+			for (int arc = firstArc.get(v); arc < firstArc.get(v + 1); arc++) {
+				int w = arcHead.get(arc);
+				if (included.get(w) < 0) {
+					included.put(w, nodeIds.size());
+					nodeIds.add(w);
+				}
+			}
+		int[] sorted = nodeIds.toArray();
+		Arrays.sort(sorted);
+		return materialize(sorted);
+	}
+
+	// The positions of a few nodes of the store in a list of them. A small hash
+	// table (open addressing with linear probing, as in EdgeIndex) sized to the
+	// list rather than an array over all the nodes, so materializing a region
+	// allocates nothing in proportion to the size of the store
+	private static class Positions {
+		private final int[] keys; // node index + 1, 0 marks an empty slot
+		private final int[] values;
+		private final int mask; // table length - 1, the length is a power of two
+
+		Positions(int expectedSize) {
+			int capacity = 16;
+			while (capacity < expectedSize * 2)
+				capacity <<= 1;
+			keys = new int[capacity];
+			values = new int[capacity];
+			mask = capacity - 1;
+		}
+
+		private int slotOf(int v) {
+			int h = v * 0x9E3779B9;
+			return (h ^ (h >>> 16)) & mask;
+		}
+
+		// record v at position, at most expectedSize nodes in all
+		void put(int v, int position) {
+			int slot = slotOf(v);
+			while (keys[slot] != 0 && keys[slot] != v + 1)
+				slot = (slot + 1) & mask;
+			keys[slot] = v + 1;
+			values[slot] = position;
+		}
+
+		// Answer the position of v, -1 if it was not put
+		int get(int v) {
+			for (int slot = slotOf(v); keys[slot] != 0; slot = (slot + 1) & mask)
+				if (keys[slot] == v + 1)
+					return values[slot];
+			return -1;
+		}
+	}
+
+	// Stores look like this: STORE: (440232 nodes, 988257 edges)
+	public String toString() {
+		return "STORE: (" + nodes + " nodes, " + edges + " edges)";
+	}
+}
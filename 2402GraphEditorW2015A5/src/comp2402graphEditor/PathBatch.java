@@ -0,0 +1,117 @@
+package comp2402graphEditor;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import comp2402graphEditor.Graph.PathFindingMethod;
+
+class PathBatch {
+	// Runs a batch of path queries on one snapshot of a graph in parallel.
+	// The queries are split into chunks that a ForkJoinPool runs on its worker
+	// threads; each worker uses its own SearchContext, so nothing is shared
+	// between queries except read-only data. Preprocessed data (landmarks,
+	// contraction hierarchy, arc flags) is fetched once before the batch starts
+	// so the workers never need a lock. Results are PathResults only; the
+	// editor's selection is never touched.
+
+	private static final int QUERIES_PER_TASK = 16;
+
+	// shared by all batches so worker threads, and their search contexts, are reused
+	private static ForkJoinPool sharedPool = null;
+
+	private final GraphSnapshot graph;
+	private final List<PathQuery> queries;
+	private final PathResult[] results;
+	private final ThreadLocal<SearchContext> contexts;
+	private Landmarks landmarks = null;
+	private ContractionHierarchy hierarchy = null;
+	private ArcFlags arcFlags = null;
+
+	PathBatch(Graph aGraph, List<PathQuery> queries, ThreadLocal<SearchContext> contexts) {
+		this.queries = queries;
+		this.contexts = contexts;
+		results = new PathResult[queries.size()];
+
+		// prepare what the methods in the batch need, then take the snapshot
+		// they were all built on
+		for (PathQuery aQuery : queries) {
+			if (aQuery.getMethod() == PathFindingMethod.AStarLandmarks && landmarks == null)
+				landmarks = aGraph.landmarks();
+			else if (aQuery.getMethod() == PathFindingMethod.ContractionHierarchies && hierarchy == null)
+				hierarchy = aGraph.contractionHierarchy();
+			else if (aQuery.getMethod() == PathFindingMethod.ArcFlags && arcFlags == null)
+				arcFlags = aGraph.arcFlags();
+		}
+		graph = aGraph.snapshot();
+		if ((landmarks != null && landmarks.getGraph() != graph)
+				|| (hierarchy != null && hierarchy.getGraph() != graph)
+				|| (arcFlags != null && arcFlags.getGraph() != graph))
+			throw new IllegalStateException("Graph changed while a path batch was being prepared");
+	}
+
+	static synchronized ForkJoinPool pool(int parallelism) {
+		if (parallelism > 0)
+			return new ForkJoinPool(parallelism);
+		if (sharedPool == null)
+			sharedPool = new ForkJoinPool();
+		return sharedPool;
+	}
+
+	// Run the queries on parallelism threads (0 for one per processor)
+	PathResult[] run(int parallelism) {
+		ForkJoinPool aPool = pool(parallelism);
+		aPool.invoke(new Chunk(0, results.length));
+		if (parallelism > 0)
+			aPool.shutdown();
+		return results;
+	}
+
+	private PathResult solve(PathQuery aQuery, SearchContext context) {
+		int source = indexOf(aQuery.getSource());
+		int target = indexOf(aQuery.getTarget());
+		PathFindingMethod theMethod = aQuery.getMethod();
+		if (theMethod == PathFindingMethod.GreedyBestNeighbour)
+			return GraphSearch.greedyBestNeighbour(graph, source, target, context);
+		else if (theMethod == PathFindingMethod.BidirectionalDijkstra)
+			return GraphSearch.bidirectionalSearch(graph, source, target, false, context);
+		else if (theMethod == PathFindingMethod.BidirectionalAStar)
+			return GraphSearch.bidirectionalSearch(graph, source, target, true, context);
+		else if (theMethod == PathFindingMethod.ContractionHierarchies)
+			return hierarchy.findPath(source, target, context);
+		else if (theMethod == PathFindingMethod.ArcFlags)
+			return arcFlags.findPath(source, target, context);
+		else if (theMethod == PathFindingMethod.YenKShortestPaths)
+			return KShortestPaths.shortestPath(graph, source, target, context);
+		return GraphSearch.bestFirstSearch(graph, source, target, theMethod, landmarks, context);
+	}
+
+	private int indexOf(Node aNode) {
+		int v = aNode.getIndex();
+		if (v < 0 || v >= graph.nodeCount() || graph.nodes[v] != aNode)
+			throw new IllegalArgumentException("Node is not part of this graph: " + aNode);
+		return v;
+	}
+
+	// the queries from .. to-1, split in half until small enough
+	private class Chunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from, to;
+
+		Chunk(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > QUERIES_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Chunk(from, middle), new Chunk(middle, to));
+				return;
+			}
+			SearchContext context = contexts.get();
+			for (int i = from; i < to; i++)
+				results[i] = solve(queries.get(i), context);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package comp2402graphEditor;
+
+public class PathQuery {
+	// One request of a batch of path queries: find a path from source to target
+	// with the given method. See Graph.findPaths.
+
+	private final Node source;
+	private final Node target;
+	private final Graph.PathFindingMethod method;
+
+	public PathQuery(Node source, Node target, Graph.PathFindingMethod method) {
+		this.source = source;
+		this.target = target;
+		this.method = method;
+	}
+
+	public Node getSource() {return source;}
+	public Node getTarget() {return target;}
+	public Graph.PathFindingMethod getMethod() {return method;}
+
+	// Queries look like this: Dijkstra A(12,43)->B(67,34)
+	public String toString() {
+		return Graph.nameOfMethod(method) + " " + source + "->" + target;
+	}
+}
@@ -0,0 +1,58 @@
+package comp2402graphEditor;
+
+import java.util.ArrayList;
+
+public class PathResult {
+	// The answer to one path query: the path as edge indices of the graph it
+	// was computed on, its total weight and how much work the search did.
+	// A PathResult never refers to search state, so it stays valid after the
+	// SearchContext that produced it is reused.
+
+	private final ReadOnlyGraph graph; // graph the edge indices refer to
+	private final Graph.PathFindingMethod method;
+	private final int source;
+	private final int target;
+	private final boolean found; // false if the target was not reached
+	private final double distance; // total weight of the path edges
+	private final int[] edgeIds; // path edges in order from source to target
+	private final int settledCount; // nodes settled (expanded) by the search
+
+	PathResult(ReadOnlyGraph graph, Graph.PathFindingMethod method, int source, int target, boolean found,
+			double distance, int[] edgeIds, int settledCount) {
+		this.graph = graph;
+		this.method = method;
+		this.source = source;
+		this.target = target;
+		this.found = found;
+		this.distance = distance;
+		this.edgeIds = edgeIds;
+		this.settledCount = settledCount;
+	}
+
+	public ReadOnlyGraph getGraph() {return graph;}
+	public Graph.PathFindingMethod getMethod() {return method;}
+	public int getSource() {return source;}
+	public int getTarget() {return target;}
+	public boolean isFound() {return found;}
+	public double getDistance() {return found ? distance : Graph.infinity();}
+	public int[] getEdgeIds() {return edgeIds;}
+	public int getSettledCount() {return settledCount;}
+
+	// answer the path edges as Edge objects; only a path found on a
+	// GraphSnapshot has them (see OffHeapGraphStore.materialize otherwise)
+	public ArrayList<Edge> getEdges() {
+		if (!(graph instanceof GraphSnapshot))
+			throw new IllegalStateException("Path has no Edge objects, it was found on " + graph);
+		ArrayList<Edge> thePath = new ArrayList<Edge>(edgeIds.length);
+		for (int e : edgeIds)
+			thePath.add(((GraphSnapshot) graph).edge(e));
+		return thePath;
+	}
+
+	// Paths look like this: Dijkstra 12->40: 552.0 (9 edges, 130 settled)
+	public String toString() {
+		return Graph.nameOfMethod(method) + " " + source + "->" + target + ": "
+				+ (found ? String.valueOf(distance) : "no path") + " (" + edgeIds.length + " edges, "
+				+ settledCount + " settled)";
+	}
+}
@@ -0,0 +1,37 @@
+package comp2402graphEditor;
+
+public class RangeResult {
+	// The answer to a range query: every node within maxDistance of the source,
+	// in order of distance, with its distance and the edge of the shortest path
+	// tree that reaches it (-1 for the source). Indices refer to the graph searched.
+
+	private final ReadOnlyGraph graph;
+	private final int source;
+	private final double maxDistance;
+	private final int[] nodeIds;
+	private final double[] distances;
+	private final int[] treeEdges;
+
+	RangeResult(ReadOnlyGraph graph, int source, double maxDistance, int[] nodeIds, double[] distances,
+			int[] treeEdges) {
+		this.graph = graph;
+		this.source = source;
+		this.maxDistance = maxDistance;
+		this.nodeIds = nodeIds;
+		this.distances = distances;
+		this.treeEdges = treeEdges;
+	}
+
+	public ReadOnlyGraph getGraph() {return graph;}
+	public int getSource() {return source;}
+	public double getMaxDistance() {return maxDistance;}
+	public int size() {return nodeIds.length;}
+	public int[] getNodeIds() {return nodeIds;}
+	public double[] getDistances() {return distances;}
+	public int[] getTreeEdges() {return treeEdges;}
+
+	// Ranges look like this: Range 12 <= 200.0: 35 nodes
+	public String toString() {
+		return "Range " + source + " <= " + maxDistance + ": " + nodeIds.length + " nodes";
+	}
+}
@@ -0,0 +1,35 @@
+package comp2402graphEditor;
+
+public interface ReadOnlyGraph {
+	// A graph the search algorithms of GraphSearch can run on, seen as numbered
+	// nodes and edges in compressed sparse row form (see GraphSnapshot).
+	// The arcs leaving node v are firstArc(v) .. firstArc(v+1)-1; every undirected
+	// edge appears as one arc in each direction.
+	// Implemented by GraphSnapshot (arrays on the heap, backed by Node and Edge
+	// objects) and by OffHeapGraphStore (a mapped binary graph file, no objects).
+	// Only node and edge indices are seen here; the Node and Edge objects behind
+	// a result are found through GraphSnapshot.node and edge, so only results
+	// computed on a GraphSnapshot can be shown in the editor.
+
+	int nodeCount();
+	int edgeCount();
+	int arcCount();
+
+	int firstArc(int v);
+	int arcHead(int arc); // node at the far end of the arc
+	int arcEdge(int arc); // edge of the arc
+	double arcWeight(int arc);
+
+	int edgeStart(int e);
+	int edgeEnd(int e);
+	double edgeWeight(int e);
+
+	int x(int v);
+	int y(int v);
+
+	// straight line distance between nodes u and v
+	double distanceBetween(int u, int v);
+
+	// an admissible and consistent estimate of the shortest path weight between u and v
+	double lowerBound(int u, int v);
+}
@@ -0,0 +1,119 @@
+package comp2402graphEditor;
+
+import java.util.Arrays;
+
+public class SearchContext {
+	// Holds all the state of one search over a GraphSnapshot: distances, the edge
+	// each node was reached by, the visited set and the frontier.
+	// Keeping this out of the Node objects means several searches can run on the
+	// same Graph at once, each with its own context. A context can be reused for
+	// any number of searches but must only be used by one search at a time.
+	//
+	// Per-node entries are stamped with the generation (search number) that wrote
+	// them. Starting a new search just increments the generation, so entries
+	// left over from earlier searches read as "infinite distance / unvisited"
+	// without being cleared, and a search costs only as much as the area it explores.
+
+	private int capacity = 0; // number of nodes the arrays can hold
+	private int generation = 0; // number of the current search
+
+	private double[] distance; // best known distance from the source
+	private int[] previousEdge; // edge index a node was reached by, -1 if none
+	private int[] reachedStamp; // generation in which distance/previousEdge were set
+	private int[] visitedStamp; // generation in which the node was visited
+	private double[] heuristic; // estimated distance to the goal of the search
+	private int[] heuristicStamp; // generation in which heuristic was computed
+	private IntList reached = new IntList(); // nodes reached in this search, in order
+
+	IndexedMinHeap frontier; // open nodes of best first searches
+	int[] stack; // node stack or queue used by traversals
+	int[] arcCursor; // next arc to scan for each node on the DFS stack
+	int settledCount = 0; // number of nodes settled by the last search
+	private SearchContext reverse = null; // state of the backward half of bidirectional searches
+
+	public SearchContext() {
+		this(0);
+	}
+
+	public SearchContext(int nodeCapacity) {
+		ensureCapacity(nodeCapacity);
+	}
+
+	private void ensureCapacity(int n) {
+		if (n <= capacity && distance != null)
+			return;
+		capacity = Math.max(n, capacity * 3 / 2);
+		distance = new double[capacity];
+		previousEdge = new int[capacity];
+		reachedStamp = new int[capacity];
+		visitedStamp = new int[capacity];
+		heuristic = new double[capacity];
+		heuristicStamp = new int[capacity];
+		frontier = new IndexedMinHeap(capacity);
+		stack = new int[capacity];
+		arcCursor = new int[capacity];
+		generation = 0;
+	}
+
+	// Prepare the context for a new search over a graph with n nodes
+	void reset(int n) {
+		ensureCapacity(n);
+		generation++;
+		if (generation == Integer.MAX_VALUE) {
+			// stamps are about to wrap around, clear them once
+			Arrays.fill(reachedStamp, 0);
+			Arrays.fill(visitedStamp, 0);
+			Arrays.fill(heuristicStamp, 0);
+			generation = 1;
+		}
+		reached.clear();
+		frontier.clear();
+		settledCount = 0;
+	}
+
+	public double distanceTo(int v) {
+		return reachedStamp[v] == generation ? distance[v] : Graph.infinity();
+	}
+
+	public int previousEdge(int v) {
+		return reachedStamp[v] == generation ? previousEdge[v] : -1;
+	}
+
+	public boolean isVisited(int v) {return visitedStamp[v] == generation;}
+	public boolean isReached(int v) {return reachedStamp[v] == generation;}
+	public int getSettledCount() {return settledCount;}
+
+	// the context holding the backward search of a bidirectional search
+	public SearchContext reverse() {
+		if (reverse == null)
+			reverse = new SearchContext(capacity);
+		return reverse;
+	}
+
+	// the nodes given a distance by the last search, in the order they were reached
+	public int reachedCount() {return reached.size();}
+	public int reachedNode(int i) {return reached.get(i);}
+
+	void setDistance(int v, double d, int edge) {
+		if (reachedStamp[v] != generation) {
+			reachedStamp[v] = generation;
+			reached.add(v);
+		}
+		distance[v] = d;
+		previousEdge[v] = edge;
+	}
+
+	void setVisited(int v) {
+		visitedStamp[v] = generation;
+	}
+
+	// The heuristic of a node depends only on the node and the goal, so a search
+	// computes it once per node and reads it back when the node is queued again
+	boolean hasHeuristic(int v) {return heuristicStamp[v] == generation;}
+	double heuristic(int v) {return heuristic[v];}
+
+	void setHeuristic(int v, double h) {
+		heuristicStamp[v] = generation;
+		heuristic[v] = h;
+	}
+}
@@ -0,0 +1,197 @@
+package comp2402graphEditor;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+public class SpatialIndex {
+	// Uniform grid over the drawing plane used by the editor's hit tests
+	// (Graph.nodeAt, edgeAt, nodeWithLocation and the box selections), so a
+	// mouse event only looks at the nodes and edges near the mouse.
+	// Cells are CELL_SIZE pixels square and exist only while something is in
+	// them. A node is kept in the cell holding its location. An edge is kept in
+	// every cell that comes within reach of its line, where reach is the width of
+	// the region edgeAt accepts around it (which grows with the edge's length).
+	// Graph tells the index when nodes and edges are added, removed or moved.
+
+	public static final int CELL_SHIFT = 6;
+	public static final int CELL_SIZE = 1 << CELL_SHIFT; // 64 pixels
+
+	private final Grid<Node> nodeGrid = new Grid<Node>();
+	private final Grid<Edge> edgeGrid = new Grid<Edge>();
+
+	private static int cellOf(int coordinate) {
+		return coordinate >> CELL_SHIFT; // rounds down for negative coordinates too
+	}
+
+	private static long key(int cx, int cy) {
+		return Graph.locationKey(cx, cy);
+	}
+
+	// UPDATES
+
+	public void addNode(Node aNode) {
+		nodeGrid.put(aNode, new long[] {key(cellOf(aNode.getX()), cellOf(aNode.getY()))});
+	}
+
+	public void removeNode(Node aNode) {
+		nodeGrid.remove(aNode);
+	}
+
+	public void addEdge(Edge anEdge) {
+		edgeGrid.put(anEdge, cellsNear(anEdge));
+	}
+
+	public void removeEdge(Edge anEdge) {
+		edgeGrid.remove(anEdge);
+	}
+
+	// re-file aNode and its edges after it moved
+	public void nodeMoved(Node aNode) {
+		removeNode(aNode);
+		addNode(aNode);
+		for (Edge anEdge : aNode.incidentEdges())
+			if (edgeGrid.contains(anEdge)) {
+				removeEdge(anEdge);
+				addEdge(anEdge);
+			}
+	}
+
+	// the cells a point accepted by Graph.edgeAt for anEdge can lie in
+	private static long[] cellsNear(Edge anEdge) {
+		Node s = anEdge.getStartNode();
+		Node e = anEdge.getEndNode();
+		// edgeAt accepts the points of an ellipse with foci s and e and major
+		// axis length+1; it lies within reach of the line from s to e
+		double length = Graph.distanceBetween(s.getX(), s.getY(), e.getX(), e.getY());
+		double reach = Math.sqrt((2 * length + 1) / 4) + 1;
+		// a cell is in reach if its centre is within reach + half its diagonal
+		double cellReach = reach + CELL_SIZE * Math.sqrt(0.5);
+
+		int fromX = cellOf((int) Math.floor(Math.min(s.getX(), e.getX()) - reach));
+		int toX = cellOf((int) Math.ceil(Math.max(s.getX(), e.getX()) + reach));
+		int fromY = cellOf((int) Math.floor(Math.min(s.getY(), e.getY()) - reach));
+		int toY = cellOf((int) Math.ceil(Math.max(s.getY(), e.getY()) + reach));
+		IntList cells = new IntList();
+		for (int cx = fromX; cx <= toX; cx++)
+			for (int cy = fromY; cy <= toY; cy++) {
+				double centreX = ((long) cx << CELL_SHIFT) + CELL_SIZE / 2.0;
+				double centreY = ((long) cy << CELL_SHIFT) + CELL_SIZE / 2.0;
+				if (distanceToSegment(centreX, centreY, s.getX(), s.getY(), e.getX(), e.getY()) <= cellReach) {
+					cells.add(cx);
+					cells.add(cy);
+				}
+			}
+		long[] keys = new long[cells.size() / 2];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = key(cells.get(2 * i), cells.get(2 * i + 1));
+		return keys;
+	}
+
+	private static double distanceToSegment(double px, double py, int sx, int sy, int ex, int ey) {
+		double dx = ex - sx, dy = ey - sy;
+		double lengthSquared = dx * dx + dy * dy;
+		double t = lengthSquared == 0.0 ? 0.0 : ((px - sx) * dx + (py - sy) * dy) / lengthSquared;
+		t = Math.max(0.0, Math.min(1.0, t));
+		double x = sx + t * dx - px, y = sy + t * dy - py;
+		return Math.sqrt(x * x + y * y);
+	}
+
+	// QUERIES
+
+	// Answer the nodes whose location is in the square of half width radius around p
+	public ArrayList<Node> nodesNear(Point p, int radius) {
+		return nodesIn(new Rectangle(p.x - radius, p.y - radius, 2 * radius + 1, 2 * radius + 1));
+	}
+
+	// Answer the nodes whose location is in area (in the sense of Rectangle.contains)
+	public ArrayList<Node> nodesIn(Rectangle area) {
+		ArrayList<Node> result = new ArrayList<Node>();
+		if (area.isEmpty())
+			return result;
+		int fromX = cellOf(area.x), toX = cellOf(area.x + area.width - 1);
+		int fromY = cellOf(area.y), toY = cellOf(area.y + area.height - 1);
+		if ((long) (toX - fromX + 1) * (toY - fromY + 1) > nodeGrid.cellCount()) {
+			// a box larger than the occupied part of the plane: look at the occupied cells
+			for (ArrayList<Node> cell : nodeGrid.cells())
+				for (Node aNode : cell)
+					if (area.contains(aNode.getX(), aNode.getY()))
+						result.add(aNode);
+			return result;
+		}
+		for (int cx = fromX; cx <= toX; cx++)
+			for (int cy = fromY; cy <= toY; cy++) {
+				ArrayList<Node> cell = nodeGrid.get(key(cx, cy));
+				if (cell != null)
+					for (Node aNode : cell)
+						if (area.contains(aNode.getX(), aNode.getY()))
+							result.add(aNode);
+			}
+		return result;
+	}
+
+	// Answer the edges that edgeAt might accept at p, unchecked (a copy of
+	// the cell, so callers may change it)
+	public ArrayList<Edge> edgesNear(Point p) {
+		ArrayList<Edge> cell = edgeGrid.get(key(cellOf(p.x), cellOf(p.y)));
+		return cell != null ? new ArrayList<Edge>(cell) : new ArrayList<Edge>();
+	}
+
+	// Answer the other edges filed in any of the cells anEdge is filed in: every
+	// edge anEdge can cross is among them
+	public ArrayList<Edge> edgesNear(Edge anEdge) {
+		ArrayList<Edge> result = new ArrayList<Edge>();
+		long[] keys = edgeGrid.cellsOf(anEdge);
+		if (keys == null)
+			return result;
+		IdentityHashMap<Edge, Edge> found = new IdentityHashMap<Edge, Edge>();
+		found.put(anEdge, anEdge);
+		for (long key : keys)
+			for (Edge other : edgeGrid.get(key))
+				if (found.put(other, other) == null)
+					result.add(other);
+		return result;
+	}
+
+	// Cells of a uniform grid, each holding the items filed under it
+	private static class Grid<T> {
+		private final HashMap<Long, ArrayList<T>> cells = new HashMap<Long, ArrayList<T>>();
+		private final IdentityHashMap<T, long[]> cellsOfItem = new IdentityHashMap<T, long[]>();
+
+		ArrayList<T> get(long key) {
+			return cells.get(key);
+		}
+
+		int cellCount() {return cells.size();}
+
+		Iterable<ArrayList<T>> cells() {return cells.values();}
+
+		boolean contains(T item) {return cellsOfItem.containsKey(item);}
+
+		long[] cellsOf(T item) {return cellsOfItem.get(item);}
+
+		void put(T item, long[] keys) {
+			cellsOfItem.put(item, keys);
+			for (long key : keys) {
+				ArrayList<T> cell = cells.get(key);
+				if (cell == null)
+					cells.put(key, cell = new ArrayList<T>(4));
+				cell.add(item);
+			}
+		}
+
+		void remove(T item) {
+			long[] keys = cellsOfItem.remove(item);
+			if (keys == null)
+				return;
+			for (long key : keys) {
+				ArrayList<T> cell = cells.get(key);
+				cell.remove(item);
+				if (cell.isEmpty())
+					cells.remove(key);
+			}
+		}
+	}
+}
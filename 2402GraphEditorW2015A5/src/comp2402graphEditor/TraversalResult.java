@@ -0,0 +1,27 @@
+package comp2402graphEditor;
+
+public class TraversalResult {
+	// The outcome of a depth or breadth first traversal: the nodes in the order they
+	// were seen with their search level, the tree edges used to reach them and the
+	// other edges that were examined. All indices refer to the graph searched.
+
+	private final ReadOnlyGraph graph;
+	private final int[] order; // node indices in the order they were seen
+	private final int[] level; // level[i] is the search level of order[i]
+	private final int[] treeEdges; // edges that discovered a new node
+	private final int[] nonTreeEdges; // edges that led to an already seen node
+
+	TraversalResult(ReadOnlyGraph graph, IntList order, IntList level, IntList treeEdges, IntList nonTreeEdges) {
+		this.graph = graph;
+		this.order = order.toArray();
+		this.level = level.toArray();
+		this.treeEdges = treeEdges.toArray();
+		this.nonTreeEdges = nonTreeEdges.toArray();
+	}
+
+	public ReadOnlyGraph getGraph() {return graph;}
+	public int[] getOrder() {return order;}
+	public int[] getLevels() {return level;}
+	public int[] getTreeEdges() {return treeEdges;}
+	public int[] getNonTreeEdges() {return nonTreeEdges;}
+}